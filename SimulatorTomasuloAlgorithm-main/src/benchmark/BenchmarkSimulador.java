@@ -0,0 +1,341 @@
+package benchmark;
+
+import simulador.Instrucao;
+import simulador.InstructionParser;
+import simulador.NivelLog;
+import simulador.ProgramaBinario;
+import simulador.Simulador;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Bateria de benchmarks do motor de simulação.
+ * Cada benchmark roda iterações de aquecimento e de medição com tempo fixo e reporta
+ * a vazão (ciclos simulados ou linhas por segundo) e a alocação por unidade,
+ * medida pelo ThreadMXBean como o profiler gc do JMH.
+ * A preparação de cada operação (ex: reiniciar o simulador) fica fora da medição.
+ *
+ * Uso: java -cp bin benchmark.BenchmarkSimulador [--aquecimento N] [--iteracoes N] [--tempo ms]
+ *      [--linhas N] [--limite-alocacao bytes] [caso1.txt ...]
+ *
+ * Com --limite-alocacao o programa termina com erro se os benchmarks proximoCiclo
+ * (bytes por ciclo) ou reiniciar (bytes por reinicio) alocarem mais do que o limite,
+ * servindo de verificação de regressão.
+ */
+public class BenchmarkSimulador {
+
+    /**
+     * Uma operação medida pelo benchmark
+     */
+    private interface Operacao {
+        /** Prepara a proxima execução, fora da medição */
+        void preparar() throws Exception;
+
+        /** Executa a operação medida e retorna quantas unidades (ciclos, linhas...) processou */
+        long executar() throws Exception;
+    }
+
+    /**
+     * Resultado de um benchmark
+     */
+    private static class Medida {
+        final String nome;
+        final String unidade;
+        final double[] vazaoPorIteracao;
+        final double bytesPorUnidade;
+
+        Medida(String nome, String unidade, double[] vazaoPorIteracao, double bytesPorUnidade) {
+            this.nome = nome;
+            this.unidade = unidade;
+            this.vazaoPorIteracao = vazaoPorIteracao;
+            this.bytesPorUnidade = bytesPorUnidade;
+        }
+
+        double media() {
+            return Arrays.stream(vazaoPorIteracao).average().orElse(0.0);
+        }
+
+        double desvio() {
+            double media = media();
+            double soma = 0.0;
+            for (double v : vazaoPorIteracao) {
+                soma += (v - media) * (v - media);
+            }
+            return vazaoPorIteracao.length > 1 ? Math.sqrt(soma / (vazaoPorIteracao.length - 1)) : 0.0;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int iteracoesAquecimento;
+    private final int iteracoesMedicao;
+    private final long tempoIteracaoNanos;
+
+    public BenchmarkSimulador(int iteracoesAquecimento, int iteracoesMedicao, long tempoIteracaoMillis) {
+        this.iteracoesAquecimento = iteracoesAquecimento;
+        this.iteracoesMedicao = iteracoesMedicao;
+        this.tempoIteracaoNanos = tempoIteracaoMillis * 1_000_000L;
+    }
+
+    private Medida medir(String nome, String unidade, Operacao operacao) throws Exception {
+        long idThread = Thread.currentThread().getId();
+        for (int i = 0; i < iteracoesAquecimento; i++) {
+            rodarIteracao(operacao, idThread, null);
+        }
+        double[] vazao = new double[iteracoesMedicao];
+        long[] totais = new long[2]; // unidades, bytes
+        for (int i = 0; i < iteracoesMedicao; i++) {
+            vazao[i] = rodarIteracao(operacao, idThread, totais);
+        }
+        double bytesPorUnidade = totais[0] == 0 ? 0.0 : (double) totais[1] / totais[0];
+        return new Medida(nome, unidade, vazao, bytesPorUnidade);
+    }
+
+    /**
+     * Roda a operação até completar o tempo da iteração e retorna a vazão em unidades por segundo
+     */
+    private double rodarIteracao(Operacao operacao, long idThread, long[] totais) throws Exception {
+        long tempo = 0;
+        long unidades = 0;
+        long bytes = 0;
+        while (tempo < tempoIteracaoNanos) {
+            operacao.preparar();
+            long bytesAntes = THREADS.getThreadAllocatedBytes(idThread);
+            long inicio = System.nanoTime();
+            unidades += operacao.executar();
+            tempo += System.nanoTime() - inicio;
+            bytes += THREADS.getThreadAllocatedBytes(idThread) - bytesAntes;
+        }
+        if (totais != null) {
+            totais[0] += unidades;
+            totais[1] += bytes;
+        }
+        return unidades * 1e9 / tempo;
+    }
+
+    /**
+     * Ciclos simulados por segundo chamando proximoCiclo() em um programa gerado
+     */
+    public Medida benchmarkProximoCiclo(List<Instrucao> programa) throws Exception {
+        Simulador simulador = new Simulador();
+        simulador.carregarInstrucoes(programa);
+        simulador.setNivelLog(NivelLog.DESLIGADO);
+        return medir("proximoCiclo", "ciclos", new Operacao() {
+            public void preparar() {
+                simulador.reiniciar();
+            }
+
+            public long executar() {
+                long ciclos = 0;
+                while (!simulador.isSimulacaoCompleta()) {
+                    simulador.proximoCiclo();
+                    ciclos++;
+                }
+                return ciclos;
+            }
+        });
+    }
+
+    /**
+     * Ciclos simulados por segundo executando um programa completo
+     */
+    public Medida benchmarkExecutarCompleto(String arquivo) throws Exception {
+        Simulador simulador = new Simulador();
+        simulador.carregarInstrucoes(arquivo);
+        simulador.setNivelLog(NivelLog.DESLIGADO);
+        return medir("executarCompleto:" + new File(arquivo).getName(), "ciclos", new Operacao() {
+            public void preparar() {
+                simulador.reiniciar();
+            }
+
+            public long executar() {
+                simulador.executarCompleto();
+                return simulador.getCicloAtual();
+            }
+        });
+    }
+
+    /**
+     * Linhas parseadas por segundo lendo um arquivo gerado
+     */
+    public Medida benchmarkLerInstrucoes(String arquivo, int linhas) throws Exception {
+        return medir("lerInstrucoes:" + linhas + " linhas", "linhas", new Operacao() {
+            public void preparar() {
+            }
+
+            public long executar() throws IOException {
+                return InstructionParser.lerPrograma(arquivo).tamanho();
+            }
+        });
+    }
+
+    /**
+     * Instruções carregadas por segundo lendo o mesmo arquivo gerado já compilado (ver ProgramaBinario)
+     */
+    public Medida benchmarkLerCompilado(String arquivo, int linhas) throws Exception {
+        File compilado = File.createTempFile("benchmark-programa", ProgramaBinario.EXTENSAO);
+        compilado.deleteOnExit();
+        ProgramaBinario.gravar(InstructionParser.lerPrograma(arquivo), compilado.toPath());
+        return medir("lerCompilado:" + linhas + " linhas", "linhas", new Operacao() {
+            public void preparar() {
+            }
+
+            public long executar() throws IOException {
+                return InstructionParser.lerPrograma(compilado.getPath()).tamanho();
+            }
+        });
+    }
+
+    /**
+     * Reinicios por segundo de um simulador que acabou de executar um programa
+     */
+    public Medida benchmarkReiniciar(List<Instrucao> programa) throws Exception {
+        Simulador simulador = new Simulador();
+        simulador.carregarInstrucoes(programa);
+        simulador.setNivelLog(NivelLog.DESLIGADO);
+        return medir("reiniciar", "reinicios", new Operacao() {
+            public void preparar() {
+                simulador.executarCompleto();
+            }
+
+            public long executar() {
+                simulador.reiniciar();
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * Gera um programa aleatorio, sem branches e sem divisões por registrador,
+     * que termina sem depender dos valores calculados
+     */
+    public static List<String> gerarPrograma(int linhas, long semente) {
+        Random random = new Random(semente);
+        String[] operacoes = {"ADD", "SUB", "MUL", "ADDI", "SUBI", "MULI", "DIVI", "LOAD", "STORE"};
+        List<String> programa = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            String op = operacoes[random.nextInt(operacoes.length)];
+            int rd = 1 + random.nextInt(16);
+            int rs = random.nextInt(17);
+            int rt = random.nextInt(17);
+            switch (op) {
+                case "LOAD":
+                case "STORE":
+                    programa.add(op + " R" + rd + ", " + random.nextInt(64) + "(R" + rs + ")");
+                    break;
+                case "ADDI":
+                case "SUBI":
+                case "MULI":
+                case "DIVI":
+                    programa.add(op + " R" + rd + ", R" + rs + ", " + (1 + random.nextInt(9)));
+                    break;
+                default:
+                    programa.add(op + " R" + rd + ", R" + rs + ", R" + rt);
+            }
+        }
+        return programa;
+    }
+
+    static List<Instrucao> parsearPrograma(List<String> linhas) {
+        List<Instrucao> programa = new ArrayList<>(linhas.size());
+        for (String linha : linhas) {
+            programa.add(InstructionParser.parsearInstrucao(linha));
+        }
+        return programa;
+    }
+
+    private static void imprimir(List<Medida> medidas) {
+        System.out.printf(Locale.ROOT, "%-62s %6s %16s %14s %12s %16s%n",
+                "Benchmark", "Cnt", "Score", "Error", "Units", "Alloc (B/unid)");
+        for (Medida m : medidas) {
+            System.out.printf(Locale.ROOT, "%-62s %6d %16.1f %14.1f %12s %16.2f%n",
+                    m.nome, m.vazaoPorIteracao.length, m.media(), m.desvio(), m.unidade + "/s", m.bytesPorUnidade);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int aquecimento = 3;
+        int iteracoes = 5;
+        long tempoMillis = 1000;
+        int linhas = 100_000;
+        double limiteAlocacao = -1;
+        List<String> arquivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--aquecimento":
+                    aquecimento = Integer.parseInt(args[++i]);
+                    break;
+                case "--iteracoes":
+                    iteracoes = Integer.parseInt(args[++i]);
+                    break;
+                case "--tempo":
+                    tempoMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--linhas":
+                    linhas = Integer.parseInt(args[++i]);
+                    break;
+                case "--limite-alocacao":
+                    limiteAlocacao = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    arquivos.add(args[i]);
+            }
+        }
+        if (arquivos.isEmpty()) {
+            File[] casos = new File(".").listFiles((dir, nome) -> nome.startsWith("caso") && nome.endsWith(".txt"));
+            if (casos != null) {
+                Arrays.sort(casos);
+                for (File caso : casos) {
+                    arquivos.add(caso.getPath());
+                }
+            }
+        }
+
+        BenchmarkSimulador benchmark = new BenchmarkSimulador(aquecimento, iteracoes, tempoMillis);
+        List<Instrucao> programa = parsearPrograma(gerarPrograma(48, 42));
+        List<Medida> medidas = new ArrayList<>();
+
+        Medida proximoCiclo = benchmark.benchmarkProximoCiclo(programa);
+        medidas.add(proximoCiclo);
+        for (String arquivo : arquivos) {
+            medidas.add(benchmark.benchmarkExecutarCompleto(arquivo));
+        }
+
+        File gerado = File.createTempFile("benchmark-programa", ".txt");
+        gerado.deleteOnExit();
+        try (PrintWriter escritor = new PrintWriter(gerado)) {
+            for (String linha : gerarPrograma(linhas, 7)) {
+                escritor.println(linha);
+            }
+        }
+        medidas.add(benchmark.benchmarkLerInstrucoes(gerado.getPath(), linhas));
+        medidas.add(benchmark.benchmarkLerCompilado(gerado.getPath(), linhas));
+        Medida reiniciar = benchmark.benchmarkReiniciar(programa);
+        medidas.add(reiniciar);
+
+        imprimir(medidas);
+
+        if (limiteAlocacao >= 0) {
+            boolean regressao = false;
+            for (Medida medida : Arrays.asList(proximoCiclo, reiniciar)) {
+                if (medida.bytesPorUnidade > limiteAlocacao) {
+                    System.err.printf(Locale.ROOT, "Regressão de alocação: %s alocou %.2f bytes/%s (limite %.2f)%n",
+                            medida.nome, medida.bytesPorUnidade, medida.unidade, limiteAlocacao);
+                    regressao = true;
+                }
+            }
+            if (regressao) {
+                System.exit(1);
+            }
+        }
+    }
+}
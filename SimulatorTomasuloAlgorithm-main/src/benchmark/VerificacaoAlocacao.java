@@ -0,0 +1,84 @@
+package benchmark;
+
+import simulador.Instrucao;
+import simulador.NivelLog;
+import simulador.Simulador;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Verificação de que o ciclo de simulação não aloca memoria com o log desligado.
+ * Roda reiniciar() e proximoCiclo() até o fim de um programa gerado, repetidas vezes,
+ * e mede os bytes alocados pela thread com o ThreadMXBean. As rodadas de aquecimento
+ * (em que o JIT ainda compila e carrega classes) não contam; nas de medição qualquer
+ * byte alocado é uma regressão e o programa termina com erro.
+ *
+ * Uso: java -cp bin benchmark.VerificacaoAlocacao [--aquecimento N] [--rodadas N] [--execucoes N]
+ */
+public class VerificacaoAlocacao {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Executa o programa do inicio ao fim varias vezes
+     * @return bytes alocados pela thread durante as execuções
+     */
+    private static long rodar(Simulador simulador, int execucoes, long[] ciclos) {
+        long idThread = Thread.currentThread().getId();
+        long bytesAntes = THREADS.getThreadAllocatedBytes(idThread);
+        for (int i = 0; i < execucoes; i++) {
+            simulador.reiniciar();
+            while (!simulador.isSimulacaoCompleta()) {
+                simulador.proximoCiclo();
+                ciclos[0]++;
+            }
+        }
+        return THREADS.getThreadAllocatedBytes(idThread) - bytesAntes;
+    }
+
+    public static void main(String[] args) {
+        int aquecimento = 3;
+        int rodadas = 5;
+        int execucoes = 20_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--aquecimento":
+                    aquecimento = Integer.parseInt(args[++i]);
+                    break;
+                case "--rodadas":
+                    rodadas = Integer.parseInt(args[++i]);
+                    break;
+                case "--execucoes":
+                    execucoes = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Uso: java -cp bin benchmark.VerificacaoAlocacao [--aquecimento N] [--rodadas N] [--execucoes N]");
+                    System.exit(2);
+            }
+        }
+
+        List<Instrucao> programa = BenchmarkSimulador.parsearPrograma(BenchmarkSimulador.gerarPrograma(48, 42));
+        Simulador simulador = new Simulador();
+        simulador.carregarInstrucoes(programa);
+        simulador.setNivelLog(NivelLog.DESLIGADO);
+
+        long[] ciclos = new long[1];
+        for (int i = 0; i < aquecimento; i++) {
+            rodar(simulador, execucoes, ciclos);
+        }
+        ciclos[0] = 0;
+        long bytes = 0;
+        for (int i = 0; i < rodadas; i++) {
+            bytes += rodar(simulador, execucoes, ciclos);
+        }
+
+        System.out.printf("Alocação com o log desligado: %d bytes em %d ciclos (%d execuções)%n",
+                bytes, ciclos[0], (long) rodadas * execucoes);
+        if (bytes > 0) {
+            System.err.println("Regressão de alocação: reiniciar()/proximoCiclo() alocaram memoria com NivelLog.DESLIGADO");
+            System.exit(1);
+        }
+    }
+}
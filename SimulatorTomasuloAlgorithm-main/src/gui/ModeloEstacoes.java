@@ -0,0 +1,62 @@
+package gui;
+
+import simulador.EstacaoDeReserva;
+import simulador.Simulador;
+import java.util.List;
+
+/**
+ * Tabela das estacoes de reserva
+ */
+class ModeloEstacoes extends ModeloTabelaSimulador {
+    private List<EstacaoDeReserva> estacoes;
+
+    ModeloEstacoes(Simulador simulador) {
+        super(simulador, new String[]{"Nome", "Busy", "Op", "Vj", "Vk", "Qj", "Qk", "Dest"}, 7);
+        this.estacoes = simulador.getReservationStationsState();
+    }
+
+    @Override
+    protected void prepararLeitura() {
+        estacoes = simulador.getReservationStationsState();
+    }
+
+    @Override
+    protected int contarLinhas() {
+        return estacoes.size();
+    }
+
+    @Override
+    protected void lerEstado(int linha, int[] estado) {
+        EstacaoDeReserva estacao = estacoes.get(linha);
+        estado[0] = estacao.isBusy() ? 1 : 0;
+        estado[1] = estacao.getOp() != null ? estacao.getOp().ordinal() : -1;
+        estado[2] = Float.floatToRawIntBits(estacao.getVj());
+        estado[3] = Float.floatToRawIntBits(estacao.getVk());
+        estado[4] = estacao.getQj();
+        estado[5] = estacao.getQk();
+        estado[6] = estacao.getDest();
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        EstacaoDeReserva estacao = estacoes.get(linha);
+        switch (coluna) {
+            case 0:
+                return estacao.getNome();
+            case 1:
+                return estacao.isBusy() ? "Sim" : "Nao";
+            case 2:
+                return estacao.getOp() != null ? estacao.getOp().getNome() : "-";
+            case 3:
+                return estacao.isBusy() && estacao.getQj() < 0 ? formatarValor(estacao.getVj()) : "-";
+            case 4:
+                return estacao.isBusy() && estacao.getQk() < 0 ? formatarValor(estacao.getVk()) : "-";
+            case 5:
+                return estacao.getQj() >= 0 ? Simulador.nomeRegistradorPrivado(estacao.getQj()) : "-";
+            case 6:
+                return estacao.getQk() >= 0 ? Simulador.nomeRegistradorPrivado(estacao.getQk()) : "-";
+            default:
+                return estacao.getDest() >= 0 ? Simulador.nomeRegistradorPrivado(estacao.getDest()) : "-";
+        }
+    }
+}
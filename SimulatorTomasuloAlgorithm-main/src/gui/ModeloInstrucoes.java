@@ -0,0 +1,52 @@
+package gui;
+
+import simulador.Programa;
+import simulador.Simulador;
+
+/**
+ * Tabela de instrucoes do programa, com as etapas já concluidas por cada uma
+ */
+class ModeloInstrucoes extends ModeloTabelaSimulador {
+    private Programa programa;
+    private boolean programaTrocado;
+
+    ModeloInstrucoes(Simulador simulador) {
+        super(simulador, new String[]{"Instrucao", "Issue", "Execute", "Write", "Commit"}, 2);
+        this.programa = simulador.getPrograma();
+    }
+
+    @Override
+    protected void prepararLeitura() {
+        programaTrocado = simulador.getPrograma() != programa;
+        programa = simulador.getPrograma();
+    }
+
+    @Override
+    protected boolean estruturaMudou() {
+        // Outro programa carregado: as linhas não correspondem mais às anteriores
+        return programaTrocado;
+    }
+
+    @Override
+    protected int contarLinhas() {
+        return programa.tamanho();
+    }
+
+    @Override
+    protected void lerEstado(int linha, int[] estado) {
+        estado[0] = simulador.getEstadoInstrucao(linha);
+        estado[1] = simulador.getExecucoesInstrucao(linha);
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        int estadoExecucao = simulador.getEstadoInstrucao(linha);
+        if (coluna == 0) {
+            int execucoes = simulador.getExecucoesInstrucao(linha);
+            // O texto só é montado para as linhas visiveis
+            return (linha + 1) + ": " + programa.getTexto(linha) + ((execucoes == 0) ? "" : " (" + execucoes + ")");
+        }
+        // Colunas 1 a 4: Issue, Execute, Write e Commit
+        return estadoExecucao >= coluna ? "✓" : "-";
+    }
+}
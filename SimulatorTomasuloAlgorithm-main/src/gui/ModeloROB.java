@@ -0,0 +1,57 @@
+package gui;
+
+import simulador.ReorderBufferSlot;
+import simulador.Simulador;
+import java.util.List;
+
+/**
+ * Tabela dos slots do Buffer de Reordenamento
+ */
+class ModeloROB extends ModeloTabelaSimulador {
+    private List<ReorderBufferSlot> rob;
+
+    ModeloROB(Simulador simulador) {
+        super(simulador, new String[]{"Entry", "Busy", "Instrucao", "Estado", "Destino", "Valor"}, 6);
+        this.rob = simulador.getReorderBufferState();
+    }
+
+    @Override
+    protected void prepararLeitura() {
+        rob = simulador.getReorderBufferState();
+    }
+
+    @Override
+    protected int contarLinhas() {
+        return rob.size();
+    }
+
+    @Override
+    protected void lerEstado(int linha, int[] estado) {
+        ReorderBufferSlot slot = rob.get(linha);
+        estado[0] = slot.isBusy() ? 1 : 0;
+        estado[1] = slot.getIndiceInstrucao();
+        estado[2] = slot.getEstado() != null ? slot.getEstado().ordinal() : -1;
+        estado[3] = slot.getRegistradorPublico();
+        estado[4] = slot.isPronto() ? 1 : 0;
+        estado[5] = Float.floatToRawIntBits(slot.getResultado());
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        ReorderBufferSlot slot = rob.get(linha);
+        switch (coluna) {
+            case 0:
+                return linha;
+            case 1:
+                return slot.isBusy() ? "Sim" : "Nao";
+            case 2:
+                return slot.getIndiceInstrucao() >= 0 ? simulador.getPrograma().getTexto(slot.getIndiceInstrucao()) : "-";
+            case 3:
+                return slot.isBusy() ? slot.getEstado().getDescricao() : "-";
+            case 4:
+                return slot.getRegistradorPublico() >= 0 ? Simulador.nomeRegistradorPublico(slot.getRegistradorPublico()) : "-";
+            default:
+                return slot.isPronto() ? formatarValor(slot.getResultado()) : "-";
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package gui;
+
+import simulador.ReorderBufferSlot;
+import simulador.Simulador;
+import java.util.Arrays;
+
+/**
+ * Tabela dos registradores arquiteturais: valor, registrador fisico mapeado e se
+ * há uma instrucao em andamento que ainda vai escrever nele
+ */
+class ModeloRegistradores extends ModeloTabelaSimulador {
+    private boolean[] aguardando = new boolean[0];
+
+    ModeloRegistradores(Simulador simulador) {
+        super(simulador, new String[]{"Reg", "Busy", "Fisico", "Valor"}, 3);
+    }
+
+    /**
+     * Marca os registradores destino de slots ocupados sem resultado, em uma passada pelo ROB
+     */
+    @Override
+    protected void prepararLeitura() {
+        if (aguardando.length != simulador.getNumRegistradoresPublicos()) {
+            aguardando = new boolean[simulador.getNumRegistradoresPublicos()];
+        } else {
+            Arrays.fill(aguardando, false);
+        }
+        for (ReorderBufferSlot slot : simulador.getReorderBufferState()) {
+            int reg = slot.getRegistradorPublico();
+            if (slot.isBusy() && !slot.isPronto() && reg >= 0 && reg < aguardando.length) {
+                aguardando[reg] = true;
+            }
+        }
+    }
+
+    @Override
+    protected int contarLinhas() {
+        return simulador.getNumRegistradoresPublicos();
+    }
+
+    @Override
+    protected void lerEstado(int linha, int[] estado) {
+        estado[0] = aguardando[linha] ? 1 : 0;
+        estado[1] = simulador.getMapeamento(linha);
+        estado[2] = Float.floatToRawIntBits(simulador.getValorRegistrador(linha));
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        switch (coluna) {
+            case 0:
+                return Simulador.nomeRegistradorPublico(linha);
+            case 1:
+                return aguardando[linha] ? "Sim" : "Nao";
+            case 2:
+                int mapeamento = simulador.getMapeamento(linha);
+                return mapeamento >= 0 ? Simulador.nomeRegistradorPrivado(mapeamento) : null;
+            default:
+                return formatarValor(simulador.getValorRegistrador(linha));
+        }
+    }
+}
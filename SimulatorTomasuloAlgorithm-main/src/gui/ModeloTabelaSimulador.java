@@ -0,0 +1,126 @@
+package gui;
+
+import simulador.Simulador;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Modelo de tabela que lê os valores direto do estado do simulador.
+ * Cada linha guarda um resumo do seu estado (em ints); atualizar() compara esse
+ * resumo com o da ultima atualização e avisa a tabela só das linhas que mudaram,
+ * assim a tabela não é refeita nem formatada por completo a cada ciclo.
+ */
+abstract class ModeloTabelaSimulador extends AbstractTableModel {
+    protected final Simulador simulador;
+    private final String[] colunas;
+    private final int camposPorLinha;
+
+    private int linhas;
+    private int[] estadoLinhas = new int[0]; // resumo das linhas na ultima atualização
+    private final int[] estadoAtual;
+
+    protected ModeloTabelaSimulador(Simulador simulador, String[] colunas, int camposPorLinha) {
+        this.simulador = simulador;
+        this.colunas = colunas;
+        this.camposPorLinha = camposPorLinha;
+        this.estadoAtual = new int[camposPorLinha];
+    }
+
+    /**
+     * Quantidade de linhas no estado atual do simulador
+     */
+    protected abstract int contarLinhas();
+
+    /**
+     * Escreve em estado o resumo da linha: se ele não muda, o texto da linha também não muda
+     */
+    protected abstract void lerEstado(int linha, int[] estado);
+
+    /**
+     * Chamado antes de ler as linhas, para buscar no simulador o que a leitura usa
+     * (ex: o simulador recria o ROB e as estacoes ao reiniciar)
+     */
+    protected void prepararLeitura() {
+    }
+
+    /**
+     * Indica que as linhas não correspondem mais às da ultima atualização, mesmo com a mesma quantidade
+     */
+    protected boolean estruturaMudou() {
+        return false;
+    }
+
+    /**
+     * Compara o estado do simulador com o da ultima atualização e avisa a tabela
+     * apenas das linhas alteradas (em blocos de linhas consecutivas)
+     */
+    public void atualizar() {
+        prepararLeitura();
+        if (contarLinhas() != linhas || estruturaMudou()) {
+            lerTodasLinhas();
+            return;
+        }
+
+        int inicioBloco = -1;
+        for (int linha = 0; linha < linhas; linha++) {
+            lerEstado(linha, estadoAtual);
+            int base = linha * camposPorLinha;
+            boolean mudou = false;
+            for (int c = 0; c < camposPorLinha; c++) {
+                if (estadoLinhas[base + c] != estadoAtual[c]) {
+                    estadoLinhas[base + c] = estadoAtual[c];
+                    mudou = true;
+                }
+            }
+            if (mudou && inicioBloco < 0) {
+                inicioBloco = linha;
+            } else if (!mudou && inicioBloco >= 0) {
+                fireTableRowsUpdated(inicioBloco, linha - 1);
+                inicioBloco = -1;
+            }
+        }
+        if (inicioBloco >= 0) {
+            fireTableRowsUpdated(inicioBloco, linhas - 1);
+        }
+    }
+
+    /**
+     * Relê todas as linhas e redesenha a tabela inteira (ex: outro programa carregado)
+     */
+    public void recarregar() {
+        prepararLeitura();
+        lerTodasLinhas();
+    }
+
+    private void lerTodasLinhas() {
+        linhas = contarLinhas();
+        if (estadoLinhas.length < linhas * camposPorLinha) {
+            estadoLinhas = new int[linhas * camposPorLinha];
+        }
+        Arrays.fill(estadoLinhas, 0);
+        for (int linha = 0; linha < linhas; linha++) {
+            lerEstado(linha, estadoAtual);
+            System.arraycopy(estadoAtual, 0, estadoLinhas, linha * camposPorLinha, camposPorLinha);
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return linhas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colunas.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return colunas[coluna];
+    }
+
+    protected static String formatarValor(float valor) {
+        return String.format("%.2f", valor);
+    }
+}
@@ -3,14 +3,16 @@ package gui;
 import simulador.*;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
  * Interface grafica principal do simulador Tomasulo
@@ -28,17 +30,29 @@ public class SimuladorMain extends JFrame {
     private JLabel labelIPC;
     private JLabel labelInstrucoes;
     private JLabel labelCiclosBolha;
+    private JLabel labelPredicao;
     private JButton btnCarregar;
     private JButton btnProximoCiclo;
+    private JButton btnCicloAnterior;
     private JButton btnExecutarCompleto;
     private JButton btnReiniciar;
     
     // Modelos das tabelas
-    private DefaultTableModel modeloInstrucoes;
-    private DefaultTableModel modeloEstacoes;
-    private DefaultTableModel modeloROB;
-    private DefaultTableModel modeloRegistradores;
+    private ModeloInstrucoes modeloInstrucoes;
+    private ModeloEstacoes modeloEstacoes;
+    private ModeloROB modeloROB;
+    private ModeloRegistradores modeloRegistradores;
     
+    // Estados dos ciclos anteriores, para o botao "Ciclo Anterior"
+    private static final int MAX_HISTORICO = 1000;
+    private final Deque<EstadoSimulador> historico = new ArrayDeque<>();
+
+    // Log: só os eventos novos são acrescentados ao painel, que guarda no maximo maxLinhasLog linhas
+    private static final int MAX_LINHAS_LOG_PADRAO = 100;
+    private int maxLinhasLog = MAX_LINHAS_LOG_PADRAO;
+    private long proximoEventoLog; // sequencial do primeiro evento ainda não exibido
+    private int geracaoLog; // LogEventos.getGeracao() quando o painel foi atualizado
+
     // Cores do tema escuro
     private Color corFundo = new Color(25, 25, 35);
     private Color corPainel = new Color(40, 40, 55);
@@ -49,7 +63,12 @@ public class SimuladorMain extends JFrame {
     private Color corErro = new Color(244, 67, 54);
 
     public SimuladorMain() {
-        simulador = new Simulador();
+        this(ConfiguracaoSimulador.padrao());
+    }
+
+    public SimuladorMain(ConfiguracaoSimulador configuracao) {
+        simulador = new Simulador(configuracao);
+        simulador.setNivelLog(NivelLog.RASTREAMENTO); // o painel de log mostra os eventos de cada ciclo
         aplicarTemaPersonalizado();
         inicializarInterface();
         atualizarInterface();
@@ -136,6 +155,7 @@ public class SimuladorMain extends JFrame {
         labelInstrucoes = criarLabelPersonalizado("Instrucoes: 0/0");
         labelIPC = criarLabelPersonalizado("IPC: 0.00");
         labelCiclo = criarLabelPersonalizado("Ciclo: 0");
+        labelPredicao = criarLabelPersonalizado("Predicao: -");
 
         // Separador
         painel.add(criarSeparadorVertical());
@@ -145,6 +165,7 @@ public class SimuladorMain extends JFrame {
         painel.add(labelInstrucoes);
         painel.add(labelIPC);
         painel.add(labelCiclo);
+        painel.add(labelPredicao);
         
         // Separador entre labels e botoes
         painel.add(criarSeparadorVertical());
@@ -158,6 +179,10 @@ public class SimuladorMain extends JFrame {
         btnExecutarCompleto.addActionListener(e -> executarCompleto());
         btnExecutarCompleto.setEnabled(false);
         
+        btnCicloAnterior = criarBotaoPersonalizado("Ciclo Anterior", corSucesso);
+        btnCicloAnterior.addActionListener(e -> cicloAnterior());
+        btnCicloAnterior.setEnabled(false);
+
         btnProximoCiclo = criarBotaoPersonalizado("Proximo Ciclo", corSucesso);
         btnProximoCiclo.addActionListener(e -> proximoCiclo());
         btnProximoCiclo.setEnabled(false);
@@ -168,6 +193,7 @@ public class SimuladorMain extends JFrame {
         // Adicionar botoes
         painel.add(btnReiniciar);
         painel.add(btnExecutarCompleto);
+        painel.add(btnCicloAnterior);
         painel.add(btnProximoCiclo);
         painel.add(btnCarregar);
         
@@ -242,24 +268,22 @@ public class SimuladorMain extends JFrame {
         painel.setBackground(corFundo);
         painel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
+        // Modelos ligados direto ao estado do simulador
+        modeloRegistradores = new ModeloRegistradores(simulador);
+        modeloROB = new ModeloROB(simulador);
+        modeloEstacoes = new ModeloEstacoes(simulador);
+        modeloInstrucoes = new ModeloInstrucoes(simulador);
+
         // Ordem das tabelas no grid
-        painel.add(criarPainelTabela("Registradores", 
-            new String[]{"Reg", "Busy", "Fisico", "Valor"}, 
-            false));
-        painel.add(criarPainelTabela("ROB", 
-            new String[]{"Entry", "Busy", "Instrucao", "Estado", "Destino", "Valor"}, 
-            false));
-        painel.add(criarPainelTabela("Estacoes", 
-            new String[]{"Nome", "Busy", "Op", "Vj", "Vk", "Qj", "Qk", "Dest"}, 
-            false));
-        painel.add(criarPainelTabela("Instrucoes", 
-            new String[]{"Instrucao", "Issue", "Execute", "Write", "Commit"}, 
-            true));
+        painel.add(criarPainelTabela("Registradores", modeloRegistradores, false));
+        painel.add(criarPainelTabela("ROB", modeloROB, false));
+        painel.add(criarPainelTabela("Estacoes", modeloEstacoes, false));
+        painel.add(criarPainelTabela("Instrucoes", modeloInstrucoes, true));
         
         return painel;
     }
     
-    private JPanel criarPainelTabela(String titulo, String[] colunas, boolean isInstrucoes) {
+    private JPanel criarPainelTabela(String titulo, ModeloTabelaSimulador modelo, boolean isInstrucoes) {
         JPanel painel = new JPanel(new BorderLayout());
         painel.setBackground(corFundo);
         
@@ -275,14 +299,6 @@ public class SimuladorMain extends JFrame {
         lblTitulo.setOpaque(true);
         painel.add(lblTitulo, BorderLayout.NORTH);
         
-        // Criar modelo de tabela
-        DefaultTableModel modelo = new DefaultTableModel(colunas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
         // Criar tabela personalizada
         JTable tabela = new JTable(modelo) {
             @Override
@@ -323,16 +339,12 @@ public class SimuladorMain extends JFrame {
         // Atribuir a variavel correta
         if (titulo.contains("Instrucoes")) {
             tabelaInstrucoes = tabela;
-            modeloInstrucoes = modelo;
         } else if (titulo.contains("Estacoes")) {
             tabelaEstacoes = tabela;
-            modeloEstacoes = modelo;
         } else if (titulo.contains("ROB")) {
             tabelaROB = tabela;
-            modeloROB = modelo;
         } else if (titulo.contains("Registradores")) {
             tabelaRegistradores = tabela;
-            modeloRegistradores = modelo;
         }
         
         JScrollPane scroll = new JScrollPane(tabela);
@@ -383,11 +395,12 @@ public class SimuladorMain extends JFrame {
         fileChooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
             @Override
             public boolean accept(File f) {
-                return f.isDirectory() || f.getName().toLowerCase().endsWith(".txt");
+                String nome = f.getName().toLowerCase();
+                return f.isDirectory() || nome.endsWith(".txt") || nome.endsWith(ProgramaBinario.EXTENSAO);
             }
             @Override
             public String getDescription() {
-                return "Arquivos de texto (*.txt)";
+                return "Programas (*.txt, *" + ProgramaBinario.EXTENSAO + ")";
             }
         });
         
@@ -401,6 +414,7 @@ public class SimuladorMain extends JFrame {
             File arquivo = fileChooser.getSelectedFile();
             try {
                 simulador.carregarInstrucoes(arquivo.getAbsolutePath());
+                limparHistorico();
                 btnProximoCiclo.setEnabled(true);
                 btnExecutarCompleto.setEnabled(true);
                 btnReiniciar.setEnabled(true);
@@ -420,6 +434,13 @@ public class SimuladorMain extends JFrame {
     }
     
     private void proximoCiclo() {
+        // Guarda o estado atual para poder voltar (a memoria é compartilhada por copy-on-write)
+        if (historico.size() == MAX_HISTORICO) {
+            historico.removeLast();
+        }
+        historico.push(simulador.capturarEstado());
+        btnCicloAnterior.setEnabled(true);
+
         simulador.proximoCiclo();
         atualizarInterface();
         
@@ -427,20 +448,74 @@ public class SimuladorMain extends JFrame {
             btnProximoCiclo.setEnabled(false);
             btnExecutarCompleto.setEnabled(false);
             JOptionPane.showMessageDialog(this,
-                String.format("Simulacao completa!\n\nEstatisticas:\n" +
+                String.format("%s\n\nEstatisticas:\n" +
                     "• Total de Ciclos: %d\n" +
                     "• Instrucoes Executadas: %d\n" +
                     "• Ciclos de Bolha: %d\n" +
-                    "• IPC: %.2f",
+                    "• IPC: %.2f\n" +
+                    "• Desvios previstos certo: %d/%d (%.1f%%)\n" +
+                    "• Ciclos de penalidade de desvio: %d\n" +
+                    "• LOADs encaminhados de STOREs: %d\n" +
+                    "• Ciclos de LOAD aguardando STORE: %d",
+                    descreverConclusao(),
                     simulador.getTotalCiclos(),
                     simulador.getInstrucoesExecutadas(),
                     simulador.getCiclosBolha(),
-                    simulador.calcularIPC()),
-                "Simulacao Completa", JOptionPane.INFORMATION_MESSAGE);
+                    simulador.calcularIPC(),
+                    simulador.getDesvios() - simulador.getDesviosPrevistosErrado(),
+                    simulador.getDesvios(),
+                    simulador.calcularPrecisaoPredicao() * 100,
+                    simulador.getCiclosPenalidadeDesvio(),
+                    simulador.getCargasEncaminhadas(),
+                    simulador.getCiclosEsperaMemoria()) + descreverCaches(),
+                simulador.isSimulacaoInterrompida() ? "Simulacao Interrompida" : "Simulacao Completa",
+                JOptionPane.INFORMATION_MESSAGE);
         }
     }
     
+    /**
+     * Primeira linha dos dialogos de conclusão: a simulação pode ter sido interrompida
+     * pelo watchdog ou pelo limite de ciclos (o motivo fica no log)
+     */
+    private String descreverConclusao() {
+        return simulador.isSimulacaoInterrompida()
+                ? "Simulacao interrompida sem terminar o programa (veja o motivo no log)!"
+                : "Simulacao completa!";
+    }
+
+    /**
+     * Linhas de acertos/falhas das caches para os dialogos de conclusão (vazio sem cache)
+     */
+    private String descreverCaches() {
+        StringBuilder texto = new StringBuilder();
+        CacheDados[] caches = {simulador.getCacheL1(), simulador.getCacheL2()};
+        for (int i = 0; i < caches.length; i++) {
+            if (caches[i] != null) {
+                texto.append(String.format("\n• Cache L%d: %d acertos, %d falhas (%.1f%%)", i + 1,
+                        caches[i].getAcertos(), caches[i].getFalhas(), caches[i].calcularTaxaAcerto() * 100));
+            }
+        }
+        return texto.toString();
+    }
+
+    private void cicloAnterior() {
+        if (historico.isEmpty()) {
+            return;
+        }
+        simulador.restaurarEstado(historico.pop());
+        btnCicloAnterior.setEnabled(!historico.isEmpty());
+        btnProximoCiclo.setEnabled(true);
+        btnExecutarCompleto.setEnabled(true);
+        atualizarInterface();
+    }
+
+    private void limparHistorico() {
+        historico.clear();
+        btnCicloAnterior.setEnabled(false);
+    }
+
     private void executarCompleto() {
+        limparHistorico();
         btnProximoCiclo.setEnabled(false);
         btnExecutarCompleto.setEnabled(false);
         
@@ -455,16 +530,28 @@ public class SimuladorMain extends JFrame {
             protected void done() {
                 atualizarInterface();
                 JOptionPane.showMessageDialog(SimuladorMain.this,
-                    String.format("Simulacao completa!\n\nEstatisticas:\n" +
+                    String.format("%s\n\nEstatisticas:\n" +
                         "• Total de Ciclos: %d\n" +
                         "• Instrucoes Executadas: %d\n" +
                         "• Ciclos de Bolha: %d\n" +
-                        "• IPC: %.2f",
+                        "• IPC: %.2f\n" +
+                        "• Desvios previstos certo: %d/%d (%.1f%%)\n" +
+                        "• Ciclos de penalidade de desvio: %d\n" +
+                        "• LOADs encaminhados de STOREs: %d\n" +
+                        "• Ciclos de LOAD aguardando STORE: %d",
+                        descreverConclusao(),
                         simulador.getTotalCiclos(),
                         simulador.getInstrucoesExecutadas(),
                         simulador.getCiclosBolha(),
-                        simulador.calcularIPC()),
-                    "Simulacao Completa", JOptionPane.INFORMATION_MESSAGE);
+                        simulador.calcularIPC(),
+                        simulador.getDesvios() - simulador.getDesviosPrevistosErrado(),
+                        simulador.getDesvios(),
+                        simulador.calcularPrecisaoPredicao() * 100,
+                        simulador.getCiclosPenalidadeDesvio(),
+                        simulador.getCargasEncaminhadas(),
+                        simulador.getCiclosEsperaMemoria()) + descreverCaches(),
+                    simulador.isSimulacaoInterrompida() ? "Simulacao Interrompida" : "Simulacao Completa",
+                    JOptionPane.INFORMATION_MESSAGE);
             }
         };
         
@@ -473,6 +560,7 @@ public class SimuladorMain extends JFrame {
     
     private void reiniciar() {
         simulador.reiniciar();
+        limparHistorico();
         btnProximoCiclo.setEnabled(true);
         btnExecutarCompleto.setEnabled(true);
         btnReiniciar.setEnabled(true);
@@ -480,115 +568,15 @@ public class SimuladorMain extends JFrame {
     }
     
     private void atualizarInterface() {
-        atualizarTabelaInstrucoes();
-        atualizarTabelaEstacoes();
-        atualizarTabelaROB();
-        atualizarTabelaRegistradores();
+        // Cada modelo avisa a sua tabela apenas das linhas que mudaram
+        modeloInstrucoes.atualizar();
+        modeloEstacoes.atualizar();
+        modeloROB.atualizar();
+        modeloRegistradores.atualizar();
         atualizarEstatisticas();
         atualizarLog();
     }
     
-    private void atualizarTabelaInstrucoes() {
-        modeloInstrucoes.setRowCount(0);
-        List<Instrucao> instrucoes = simulador.getInstrucoes();
-
-        for (int i = 0; i < simulador.getTotalInstrucoes(); i++) {
-            Instrucao instrucao = instrucoes.get(i);
-            String instrucaoString = (i + 1) + ": " + instrucao.toString() + ((instrucao.getQtdeExecucoes() == 0) ? "" : " (" + instrucao.getQtdeExecucoes() + ")");
-            String issue = "-";
-            String execute = "-";
-            String writeResult = "-";
-            String commit = "-";
-
-            if (instrucao.getEstadoExecucao() == -1) {
-                instrucaoString += " (Pulada)";
-            } else {
-                if(instrucao.getEstadoExecucao() >= 1) {
-                    issue = "✓";
-                }
-                if(instrucao.getEstadoExecucao() >= 2) {
-                    execute = "✓";
-                }
-                if(instrucao.getEstadoExecucao() >= 3) {
-                    writeResult = "✓";
-                }
-                if(instrucao.getEstadoExecucao() >= 4) {
-                    commit = "✓";
-                }
-            }
-            
-            modeloInstrucoes.addRow(new Object[]{instrucaoString, issue, execute, writeResult, commit});
-        }
-    }
-    
-    private void atualizarTabelaEstacoes() {
-        modeloEstacoes.setRowCount(0);
-        List<EstacaoDeReserva> estacoes = simulador.getReservationStationsState();
-
-        for (EstacaoDeReserva estacao : estacoes) {
-            Object[] linha = {
-                estacao.getNome(),
-                estacao.isBusy() ? "Sim" : "Nao",
-                estacao.getOp() != null ? estacao.getOp().getNome() : "-",
-                estacao.getVj() != null ? String.format("%.2f", estacao.getVj()) : "-",
-                estacao.getVk() != null ? String.format("%.2f", estacao.getVk()) : "-",
-                estacao.getQj() != null ? estacao.getQj() : "-",
-                estacao.getQk() != null ? estacao.getQk() : "-",
-                estacao.getDest() != null ? estacao.getDest() : "-"
-            };
-            modeloEstacoes.addRow(linha);
-        }
-    }
-    
-    private void atualizarTabelaROB() {
-        modeloROB.setRowCount(0);
-        List<ReorderBufferSlot> rob = simulador.getReorderBufferState();
-
-        for (int i = 0; i < rob.size(); i++) {
-            ReorderBufferSlot slot = rob.get(i);
-            Object[] linha = {
-                i,
-                slot.isBusy() ? "Sim" : "Nao",
-                slot.getInstrucao() != null ? slot.getInstrucao().toString() : "-",
-                slot.isBusy() ? slot.getEstado().getDescricao() : "-",
-                slot.getRegistradorPublico() != null ? slot.getRegistradorPublico() : "-",
-                slot.isPronto() && slot.getResultado() != null ? 
-                    String.format("%.2f", slot.getResultado()) : "-"
-            };
-            modeloROB.addRow(linha);
-        }
-    }
-    
-    @SuppressWarnings("unchecked")
-    private void atualizarTabelaRegistradores() {
-        modeloRegistradores.setRowCount(0);
-        Map<String, Object> status = simulador.getRegisterStatus();
-        Map<String, Float> publico = (Map<String, Float>) status.get("publico");
-        Map<String, String> mapeamento = (Map<String, String>) status.get("mapeamento");
-
-        for (String reg : publico.keySet()) {
-            String regFisico = mapeamento.get(reg);
-            Float valor = publico.get(reg);
-            
-            boolean busy = false;
-            List<ReorderBufferSlot> rob = simulador.getReorderBufferState();
-            for (ReorderBufferSlot slot : rob) {
-                if (slot.isBusy() && reg.equals(slot.getRegistradorPublico()) && !slot.isPronto()) {
-                    busy = true;
-                    break;
-                }
-            }
-            
-            Object[] linha = {
-                reg,
-                busy ? "Sim" : "Nao",
-                regFisico,
-                String.format("%.2f", valor)
-            };
-            modeloRegistradores.addRow(linha);
-        }
-    }
-    
     private void atualizarEstatisticas() {
         int cicloAtual = simulador.getCicloAtual();
         int ciclosBolha = simulador.getCiclosBolha();
@@ -600,24 +588,91 @@ public class SimuladorMain extends JFrame {
         labelIPC.setText(String.format("IPC: %.2f", ipc));
         labelInstrucoes.setText(String.format("Instrucoes: %d/%d", instrucoesExecutadas, totalInstrucoes));
         labelCiclosBolha.setText("Bolhas: " + ciclosBolha);
+        labelPredicao.setText(simulador.getDesvios() == 0 ? "Predicao: -"
+                : String.format("Predicao: %.1f%% (%d ciclos perdidos)", simulador.calcularPrecisaoPredicao() * 100,
+                        simulador.getCiclosPenalidadeDesvio()));
     }
     
+    /**
+     * Acrescenta ao painel apenas os eventos registrados desde a ultima atualização,
+     * em uma unica inserção, e remove do inicio as linhas além de maxLinhasLog
+     */
     private void atualizarLog() {
-        StringBuilder log = new StringBuilder();
-        List<String> logs = simulador.getLogExecucao();
+        LogEventos log = simulador.getLog();
+        long total = log.getTotalRegistrados();
+        Document documento = areaLog.getDocument();
 
-        int inicio = Math.max(0, logs.size() - 100);
-        for (int i = inicio; i < logs.size(); i++) {
-            log.append(logs.get(i)).append("\n");
+        // O log foi limpo ou voltou para um estado anterior: exibe de novo a partir do buffer
+        if (log.getGeracao() != geracaoLog || total < proximoEventoLog) {
+            areaLog.setText("");
+            proximoEventoLog = 0;
+            geracaoLog = log.getGeracao();
         }
-        
-        areaLog.setText(log.toString());
-        areaLog.setCaretPosition(areaLog.getDocument().getLength());
+        if (total == proximoEventoLog) {
+            return;
+        }
+
+        // Eventos que seriam removidos logo em seguida nem são formatados
+        long primeiro = Math.max(proximoEventoLog, Math.max(log.getPrimeiroSequencial(), total - maxLinhasLog));
+        StringBuilder novos = new StringBuilder();
+        for (long sequencial = primeiro; sequencial < total; sequencial++) {
+            novos.append(log.getEvento((int) (sequencial - log.getPrimeiroSequencial())).getTexto()).append("\n");
+        }
+        proximoEventoLog = total;
+
+        try {
+            documento.insertString(documento.getLength(), novos.toString(), null);
+
+            // A ultima linha do documento é a vazia depois do ultimo "\n"
+            Element raiz = documento.getDefaultRootElement();
+            int excesso = raiz.getElementCount() - 1 - maxLinhasLog;
+            if (excesso > 0) {
+                documento.remove(0, raiz.getElement(excesso - 1).getEndOffset());
+            }
+        } catch (BadLocationException e) {
+            areaLog.setText(novos.toString());
+        }
+        areaLog.setCaretPosition(documento.getLength());
+    }
+
+    /**
+     * Define quantas linhas do log o painel guarda
+     */
+    public void setMaxLinhasLog(int maxLinhasLog) {
+        if (maxLinhasLog <= 0) {
+            throw new IllegalArgumentException("maxLinhasLog deve ser positivo: " + maxLinhasLog);
+        }
+        this.maxLinhasLog = maxLinhasLog;
+        // Reexibe com o novo limite
+        proximoEventoLog = Long.MAX_VALUE;
+        atualizarLog();
+    }
+
+    public int getMaxLinhasLog() {
+        return maxLinhasLog;
     }
 
     public static void main(String[] args) {
+        int linhasLog = MAX_LINHAS_LOG_PADRAO;
+        ConfiguracaoSimulador base = ConfiguracaoSimulador.padrao();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--linhas-log")) {
+                linhasLog = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--watchdog")) {
+                base = base.comLimites(Integer.parseInt(args[++i]), base.getLimiteCiclos());
+            } else if (args[i].equals("--limite-ciclos")) {
+                base = base.comLimites(base.getJanelaWatchdog(), Integer.parseInt(args[++i]));
+            } else {
+                System.err.println("Opcao desconhecida: " + args[i]);
+                System.exit(2);
+            }
+        }
+        int maxLinhasLog = linhasLog;
+        ConfiguracaoSimulador configuracao = base;
         SwingUtilities.invokeLater(() -> {
-            new SimuladorMain().setVisible(true);
+            SimuladorMain janela = new SimuladorMain(configuracao);
+            janela.setMaxLinhasLog(maxLinhasLog);
+            janela.setVisible(true);
         });
     }
 }
\ No newline at end of file
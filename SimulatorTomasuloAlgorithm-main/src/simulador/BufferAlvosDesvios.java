@@ -0,0 +1,80 @@
+package simulador;
+
+import java.util.Arrays;
+
+/**
+ * Branch Target Buffer: guarda o alvo dos desvios já tomados, em uma tabela
+ * de mapeamento direto indexada pelo endereço do desvio.
+ * Na emissão um desvio só pode seguir o caminho tomado se o BTB conhece o seu alvo.
+ */
+public class BufferAlvosDesvios {
+    private final int[] tags;   // endereço do desvio em cada entrada (-1 se vazia)
+    private final int[] alvos;
+    private final int[] alteradas; // entradas escritas desde a ultima limpeza (com repetições)
+    private int qtdeAlteradas = -1; // -1 se a tabela inteira precisa ser limpa
+
+    public BufferAlvosDesvios(int entradas) {
+        tags = new int[entradas];
+        alvos = new int[entradas];
+        alteradas = new int[Math.max(8, entradas / 8)];
+        limpar();
+    }
+
+    /**
+     * Alvo do desvio no endereço, ou -1 se ele não está no BTB
+     */
+    public int procurar(int endereco) {
+        int i = Math.floorMod(endereco, tags.length);
+        return tags[i] == endereco ? alvos[i] : -1;
+    }
+
+    /**
+     * Registra o alvo de um desvio tomado, substituindo o que ocupava a entrada
+     */
+    public void atualizar(int endereco, int alvo) {
+        int i = Math.floorMod(endereco, tags.length);
+        tags[i] = endereco;
+        alvos[i] = alvo;
+        if (qtdeAlteradas >= 0) {
+            if (qtdeAlteradas < alteradas.length) {
+                alteradas[qtdeAlteradas++] = i;
+            } else {
+                qtdeAlteradas = -1;
+            }
+        }
+    }
+
+    /**
+     * Esvazia o BTB, apagando só as entradas escritas se elas forem poucas
+     */
+    public void limpar() {
+        if (qtdeAlteradas < 0) {
+            Arrays.fill(tags, -1);
+            Arrays.fill(alvos, -1);
+        } else {
+            for (int k = 0; k < qtdeAlteradas; k++) {
+                tags[alteradas[k]] = -1;
+                alvos[alteradas[k]] = -1;
+            }
+        }
+        qtdeAlteradas = 0;
+    }
+
+    public int getEntradas() {
+        return tags.length;
+    }
+
+    int[] getTags() {
+        return tags.clone();
+    }
+
+    int[] getAlvos() {
+        return alvos.clone();
+    }
+
+    void restaurar(int[] tags, int[] alvos) {
+        System.arraycopy(tags, 0, this.tags, 0, this.tags.length);
+        System.arraycopy(alvos, 0, this.alvos, 0, this.alvos.length);
+        qtdeAlteradas = -1;
+    }
+}
@@ -0,0 +1,171 @@
+package simulador;
+
+import java.util.Arrays;
+
+/**
+ * Um nivel de cache de dados associativa por conjunto. Guarda só quais linhas estão
+ * presentes (os dados continuam na Memoria): serve para decidir a latencia de cada acesso.
+ * Escritas alocam a linha como as leituras.
+ */
+public class CacheDados {
+    private final ConfiguracaoCache configuracao;
+    private final int conjuntos;
+    private final int vias;
+    private final int[] linhas;        // linha (endereço / palavrasPorLinha) de cada via, indexada por conjunto * vias + via
+    private final boolean[] validas;
+    private final long[] ultimoUso;    // LRU: momento do ultimo acesso de cada via
+    private final int[] arvores;       // PLRU: bits da arvore de cada conjunto (no i aponta para a metade a substituir)
+    private long relogio;
+    private int acertos;
+    private int falhas;
+
+    /**
+     * Copia imutavel do estado da cache
+     */
+    public static final class Copia {
+        private final int[] linhas;
+        private final boolean[] validas;
+        private final long[] ultimoUso;
+        private final int[] arvores;
+        private final long relogio;
+        private final int acertos;
+        private final int falhas;
+
+        private Copia(CacheDados cache) {
+            linhas = cache.linhas.clone();
+            validas = cache.validas.clone();
+            ultimoUso = cache.ultimoUso.clone();
+            arvores = cache.arvores.clone();
+            relogio = cache.relogio;
+            acertos = cache.acertos;
+            falhas = cache.falhas;
+        }
+    }
+
+    public CacheDados(ConfiguracaoCache configuracao) {
+        this.configuracao = configuracao;
+        this.conjuntos = configuracao.getConjuntos();
+        this.vias = configuracao.getAssociatividade();
+        linhas = new int[conjuntos * vias];
+        validas = new boolean[conjuntos * vias];
+        ultimoUso = new long[configuracao.getSubstituicao() == TipoSubstituicao.LRU ? conjuntos * vias : 0];
+        arvores = new int[configuracao.getSubstituicao() == TipoSubstituicao.PLRU ? conjuntos : 0];
+    }
+
+    /**
+     * Acessa a palavra, trazendo a sua linha para a cache em caso de falha
+     * @return true se a linha já estava na cache
+     */
+    public boolean acessar(int endereco) {
+        int linha = Math.floorDiv(endereco, configuracao.getPalavrasPorLinha());
+        int conjunto = Math.floorMod(linha, conjuntos);
+        int base = conjunto * vias;
+        for (int via = 0; via < vias; via++) {
+            if (validas[base + via] && linhas[base + via] == linha) {
+                acertos++;
+                usar(conjunto, via);
+                return true;
+            }
+        }
+        falhas++;
+        int via = escolherVitima(conjunto);
+        linhas[base + via] = linha;
+        validas[base + via] = true;
+        usar(conjunto, via);
+        return false;
+    }
+
+    private void usar(int conjunto, int via) {
+        if (configuracao.getSubstituicao() == TipoSubstituicao.LRU) {
+            ultimoUso[conjunto * vias + via] = ++relogio;
+        } else {
+            // Do no da via até a raiz, cada no passa a apontar para a outra metade
+            int arvore = arvores[conjunto];
+            for (int no = via + vias; no > 1; no >>>= 1) {
+                int pai = no >>> 1;
+                if ((no & 1) == 0) {
+                    arvore |= 1 << pai;
+                } else {
+                    arvore &= ~(1 << pai);
+                }
+            }
+            arvores[conjunto] = arvore;
+        }
+    }
+
+    private int escolherVitima(int conjunto) {
+        int base = conjunto * vias;
+        for (int via = 0; via < vias; via++) {
+            if (!validas[base + via]) {
+                return via;
+            }
+        }
+        if (configuracao.getSubstituicao() == TipoSubstituicao.LRU) {
+            int vitima = 0;
+            for (int via = 1; via < vias; via++) {
+                if (ultimoUso[base + via] < ultimoUso[base + vitima]) {
+                    vitima = via;
+                }
+            }
+            return vitima;
+        }
+        int no = 1;
+        while (no < vias) {
+            no = 2 * no + ((arvores[conjunto] >>> no) & 1);
+        }
+        return no - vias;
+    }
+
+    /**
+     * Invalida todas as linhas e zera os contadores
+     */
+    public void limpar() {
+        if (acertos + falhas == 0) {
+            return; // nenhum acesso desde a ultima limpeza (cada acesso conta um acerto ou uma falha)
+        }
+        Arrays.fill(validas, false);
+        Arrays.fill(ultimoUso, 0);
+        Arrays.fill(arvores, 0);
+        relogio = 0;
+        acertos = 0;
+        falhas = 0;
+    }
+
+    public Copia capturar() {
+        return new Copia(this);
+    }
+
+    public void restaurar(Copia copia) {
+        System.arraycopy(copia.linhas, 0, linhas, 0, linhas.length);
+        System.arraycopy(copia.validas, 0, validas, 0, validas.length);
+        System.arraycopy(copia.ultimoUso, 0, ultimoUso, 0, ultimoUso.length);
+        System.arraycopy(copia.arvores, 0, arvores, 0, arvores.length);
+        relogio = copia.relogio;
+        acertos = copia.acertos;
+        falhas = copia.falhas;
+    }
+
+    public ConfiguracaoCache getConfiguracao() {
+        return configuracao;
+    }
+
+    public int getAcessos() {
+        return acertos + falhas;
+    }
+
+    public int getAcertos() {
+        return acertos;
+    }
+
+    public int getFalhas() {
+        return falhas;
+    }
+
+    /**
+     * Fração dos acessos que acertaram (0 se não houve acessos)
+     */
+    public double calcularTaxaAcerto() {
+        int acessos = getAcessos();
+        return acessos == 0 ? 0.0 : (double) acertos / acessos;
+    }
+}
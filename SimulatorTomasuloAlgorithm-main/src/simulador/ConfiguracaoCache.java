@@ -0,0 +1,103 @@
+package simulador;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Configuração imutavel de um nivel de cache de dados.
+ * Tamanhos em palavras da memoria do simulador.
+ */
+public final class ConfiguracaoCache {
+    private final int palavras;
+    private final int associatividade;
+    private final int palavrasPorLinha;
+    private final int latencia; // ciclos de um acesso a este nivel
+    private final TipoSubstituicao substituicao;
+
+    public ConfiguracaoCache(int palavras, int associatividade, int palavrasPorLinha, int latencia,
+                             TipoSubstituicao substituicao) {
+        this.palavras = positivo("palavras", palavras);
+        this.associatividade = positivo("associatividade", associatividade);
+        this.palavrasPorLinha = positivo("palavrasPorLinha", palavrasPorLinha);
+        this.latencia = positivo("latencia", latencia);
+        this.substituicao = Objects.requireNonNull(substituicao, "substituicao");
+        if (palavras % (associatividade * (long) palavrasPorLinha) != 0) {
+            throw new IllegalArgumentException("palavras (" + palavras + ") deve ser multiplo de associatividade x palavrasPorLinha ("
+                    + associatividade + " x " + palavrasPorLinha + ")");
+        }
+        if (substituicao == TipoSubstituicao.PLRU
+                && (Integer.bitCount(associatividade) != 1 || associatividade > Integer.SIZE)) {
+            throw new IllegalArgumentException("PLRU precisa de associatividade potencia de 2 até " + Integer.SIZE + ": " + associatividade);
+        }
+    }
+
+    /**
+     * Lê a configuração no formato "palavras,associatividade,palavrasPorLinha,latencia[,lru|plru]", ex: "1024,4,8,1,plru"
+     */
+    public static ConfiguracaoCache fromString(String texto) {
+        String[] partes = texto.split(",");
+        if (partes.length != 4 && partes.length != 5) {
+            throw new IllegalArgumentException("Cache deve ser palavras,associatividade,palavrasPorLinha,latencia[,lru|plru]: " + texto);
+        }
+        return new ConfiguracaoCache(Integer.parseInt(partes[0].trim()), Integer.parseInt(partes[1].trim()),
+                Integer.parseInt(partes[2].trim()), Integer.parseInt(partes[3].trim()),
+                partes.length == 5 ? TipoSubstituicao.fromString(partes[4].trim()) : TipoSubstituicao.LRU);
+    }
+
+    private static int positivo(String nome, int valor) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser positivo: " + valor);
+        }
+        return valor;
+    }
+
+    public int getPalavras() {
+        return palavras;
+    }
+
+    public int getAssociatividade() {
+        return associatividade;
+    }
+
+    public int getPalavrasPorLinha() {
+        return palavrasPorLinha;
+    }
+
+    public int getLatencia() {
+        return latencia;
+    }
+
+    public TipoSubstituicao getSubstituicao() {
+        return substituicao;
+    }
+
+    public int getConjuntos() {
+        return palavras / (associatividade * palavrasPorLinha);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConfiguracaoCache)) return false;
+        ConfiguracaoCache outra = (ConfiguracaoCache) o;
+        return palavras == outra.palavras
+                && associatividade == outra.associatividade
+                && palavrasPorLinha == outra.palavrasPorLinha
+                && latencia == outra.latencia
+                && substituicao == outra.substituicao;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(palavras, associatividade, palavrasPorLinha, latencia, substituicao);
+    }
+
+    /**
+     * Mesmo formato aceito por fromString()
+     */
+    @Override
+    public String toString() {
+        return palavras + "," + associatividade + "," + palavrasPorLinha + "," + latencia + ","
+                + substituicao.getNome().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,423 @@
+package simulador;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Configuração imutavel da microarquitetura simulada (todos os campos são final e os arrays
+ * não saem da classe), então a mesma instancia pode ser compartilhada entre threads.
+ * Os metodos com...() devolvem uma nova configuração com o parametro alterado, por exemplo:
+ * ConfiguracaoSimulador.padrao().comTamanhoROB(16).comLatencia(OpCode.DIV, 10)
+ */
+public final class ConfiguracaoSimulador {
+    private static final ConfiguracaoSimulador PADRAO = new ConfiguracaoSimulador(new Parametros());
+
+    private final int tamanhoROB;
+    private final int numEstacoesAdd;
+    private final int numEstacoesMul;
+    private final int numEstacoesLoad;
+    private final int numEstacoesBranches;
+    private final int larguraEmissao; // instrucoes emitidas por ciclo
+    private final int larguraCommit; // instrucoes commitadas por ciclo
+    private final int numRegistradoresPublicos; // R0..R16
+    private final int numRegistradoresPrivados; // P0..P32
+    private final int tamanhoMemoria;
+    private final int janelaWatchdog; // ciclos sem nenhum commit até a simulação ser interrompida
+    private final int limiteCiclos; // ciclos até interromper um programa que não termina (0: sem limite)
+    private final int capacidadeLog; // eventos guardados no log de execução
+    private final TipoPreditor tipoPreditor;
+    private final int bitsPreditor; // log2 dos contadores de 2 bits do preditor
+    private final int bitsHistorico; // bits de historico global (gshare)
+    private final int entradasBTB;
+    private final ConfiguracaoCache cacheL1; // null: sem caches, LOAD/STORE com latencia fixa
+    private final ConfiguracaoCache cacheL2; // null: sem L2
+    private final int[] latencias; // latencia em ciclos, indexada por OpCode.ordinal()
+    private final int[] numUnidades; // unidades funcionais, indexadas por TipoUnidadeFuncional.ordinal()
+    private final int[] intervalosIniciacao; // ciclos entre duas operações aceitas pela mesma unidade
+
+    /**
+     * Parametros mutaveis usados só para montar uma nova configuração (com os valores padrão)
+     */
+    private static final class Parametros {
+        int tamanhoROB = 8;
+        int numEstacoesAdd = 3;
+        int numEstacoesMul = 3;
+        int numEstacoesLoad = 3;
+        int numEstacoesBranches = 3;
+        int larguraEmissao = 1;
+        int larguraCommit = 1;
+        int numRegistradoresPublicos = 17;
+        int numRegistradoresPrivados = 33;
+        int tamanhoMemoria = 1024;
+        int janelaWatchdog = 1000;
+        int limiteCiclos = 0;
+        int capacidadeLog = 10000;
+        TipoPreditor tipoPreditor = TipoPreditor.NAO_TOMADO;
+        int bitsPreditor = 10;
+        int bitsHistorico = 8;
+        int entradasBTB = 64;
+        ConfiguracaoCache cacheL1;
+        ConfiguracaoCache cacheL2;
+        int[] latencias;
+        int[] numUnidades;
+        int[] intervalosIniciacao;
+
+        Parametros() {
+            latencias = new int[OpCode.values().length];
+            latencias[OpCode.ADD.ordinal()] = 1;
+            latencias[OpCode.SUB.ordinal()] = 1;
+            latencias[OpCode.ADDI.ordinal()] = 1;
+            latencias[OpCode.SUBI.ordinal()] = 1;
+            latencias[OpCode.BEQ.ordinal()] = 2;
+            latencias[OpCode.MUL.ordinal()] = 3;
+            latencias[OpCode.MULI.ordinal()] = 3;
+            latencias[OpCode.DIV.ordinal()] = 3;
+            latencias[OpCode.DIVI.ordinal()] = 3;
+            latencias[OpCode.LOAD.ordinal()] = 5;
+            latencias[OpCode.STORE.ordinal()] = 5;
+
+            // Unidades suficientes para todas as estacoes, todas pipelined
+            numUnidades = new int[TipoUnidadeFuncional.values().length];
+            numUnidades[TipoUnidadeFuncional.SOMADOR.ordinal()] = 6; // ADD/SUB e BEQ
+            numUnidades[TipoUnidadeFuncional.MULTIPLICADOR.ordinal()] = 3;
+            numUnidades[TipoUnidadeFuncional.DIVISOR.ordinal()] = 3;
+            numUnidades[TipoUnidadeFuncional.MEMORIA.ordinal()] = 3;
+            intervalosIniciacao = new int[TipoUnidadeFuncional.values().length];
+            Arrays.fill(intervalosIniciacao, 1);
+        }
+    }
+
+    private ConfiguracaoSimulador(Parametros p) {
+        tamanhoROB = p.tamanhoROB;
+        numEstacoesAdd = p.numEstacoesAdd;
+        numEstacoesMul = p.numEstacoesMul;
+        numEstacoesLoad = p.numEstacoesLoad;
+        numEstacoesBranches = p.numEstacoesBranches;
+        larguraEmissao = p.larguraEmissao;
+        larguraCommit = p.larguraCommit;
+        numRegistradoresPublicos = p.numRegistradoresPublicos;
+        numRegistradoresPrivados = p.numRegistradoresPrivados;
+        tamanhoMemoria = p.tamanhoMemoria;
+        janelaWatchdog = p.janelaWatchdog;
+        limiteCiclos = p.limiteCiclos;
+        capacidadeLog = p.capacidadeLog;
+        tipoPreditor = p.tipoPreditor;
+        bitsPreditor = p.bitsPreditor;
+        bitsHistorico = p.bitsHistorico;
+        entradasBTB = p.entradasBTB;
+        cacheL1 = p.cacheL1;
+        cacheL2 = p.cacheL2;
+        latencias = p.latencias.clone();
+        numUnidades = p.numUnidades.clone();
+        intervalosIniciacao = p.intervalosIniciacao.clone();
+    }
+
+    /**
+     * Configuração padrão do simulador (a descrita no README)
+     */
+    public static ConfiguracaoSimulador padrao() {
+        return PADRAO;
+    }
+
+    /**
+     * Parametros iguais aos desta configuração, para montar uma configuração alterada
+     */
+    private Parametros parametros() {
+        Parametros p = new Parametros();
+        p.tamanhoROB = tamanhoROB;
+        p.numEstacoesAdd = numEstacoesAdd;
+        p.numEstacoesMul = numEstacoesMul;
+        p.numEstacoesLoad = numEstacoesLoad;
+        p.numEstacoesBranches = numEstacoesBranches;
+        p.larguraEmissao = larguraEmissao;
+        p.larguraCommit = larguraCommit;
+        p.numRegistradoresPublicos = numRegistradoresPublicos;
+        p.numRegistradoresPrivados = numRegistradoresPrivados;
+        p.tamanhoMemoria = tamanhoMemoria;
+        p.janelaWatchdog = janelaWatchdog;
+        p.limiteCiclos = limiteCiclos;
+        p.capacidadeLog = capacidadeLog;
+        p.tipoPreditor = tipoPreditor;
+        p.bitsPreditor = bitsPreditor;
+        p.bitsHistorico = bitsHistorico;
+        p.entradasBTB = entradasBTB;
+        p.cacheL1 = cacheL1;
+        p.cacheL2 = cacheL2;
+        p.latencias = latencias.clone();
+        p.numUnidades = numUnidades.clone();
+        p.intervalosIniciacao = intervalosIniciacao.clone();
+        return p;
+    }
+
+    private static int positivo(String nome, int valor) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser positivo: " + valor);
+        }
+        return valor;
+    }
+
+    public ConfiguracaoSimulador comTamanhoROB(int tamanhoROB) {
+        Parametros copia = parametros();
+        copia.tamanhoROB = positivo("tamanhoROB", tamanhoROB);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comEstacoes(int add, int mul, int load, int branches) {
+        Parametros copia = parametros();
+        copia.numEstacoesAdd = positivo("numEstacoesAdd", add);
+        copia.numEstacoesMul = positivo("numEstacoesMul", mul);
+        copia.numEstacoesLoad = positivo("numEstacoesLoad", load);
+        copia.numEstacoesBranches = positivo("numEstacoesBranches", branches);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comLarguras(int emissao, int commit) {
+        Parametros copia = parametros();
+        copia.larguraEmissao = positivo("larguraEmissao", emissao);
+        copia.larguraCommit = positivo("larguraCommit", commit);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comRegistradores(int publicos, int privados) {
+        Parametros copia = parametros();
+        copia.numRegistradoresPublicos = positivo("numRegistradoresPublicos", publicos);
+        copia.numRegistradoresPrivados = positivo("numRegistradoresPrivados", privados);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comTamanhoMemoria(int tamanhoMemoria) {
+        Parametros copia = parametros();
+        copia.tamanhoMemoria = positivo("tamanhoMemoria", tamanhoMemoria);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    /**
+     * Limites que interrompem a simulação: janelaWatchdog ciclos seguidos sem nenhum commit
+     * (deadlock ou livelock) e, opcionalmente, limiteCiclos ciclos no total para um programa
+     * que não termina (0, o padrão, não limita o total)
+     */
+    public ConfiguracaoSimulador comLimites(int janelaWatchdog, int limiteCiclos) {
+        if (limiteCiclos < 0) {
+            throw new IllegalArgumentException("limiteCiclos não pode ser negativo: " + limiteCiclos);
+        }
+        Parametros copia = parametros();
+        copia.janelaWatchdog = positivo("janelaWatchdog", janelaWatchdog);
+        copia.limiteCiclos = limiteCiclos;
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comCapacidadeLog(int capacidadeLog) {
+        Parametros copia = parametros();
+        copia.capacidadeLog = positivo("capacidadeLog", capacidadeLog);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    /**
+     * Define o preditor de desvios, com 2^bitsTabela contadores, bitsHistorico de historico
+     * global (usado pelo gshare) e entradasBTB entradas no Branch Target Buffer
+     */
+    public ConfiguracaoSimulador comPreditor(TipoPreditor tipo, int bitsTabela, int bitsHistorico, int entradasBTB) {
+        if (bitsTabela < 0 || bitsTabela > 24) {
+            throw new IllegalArgumentException("bitsPreditor deve estar entre 0 e 24: " + bitsTabela);
+        }
+        if (bitsHistorico < 0 || bitsHistorico > 24) {
+            throw new IllegalArgumentException("bitsHistorico deve estar entre 0 e 24: " + bitsHistorico);
+        }
+        Parametros copia = parametros();
+        copia.tipoPreditor = Objects.requireNonNull(tipo, "tipoPreditor");
+        copia.bitsPreditor = bitsTabela;
+        copia.bitsHistorico = bitsHistorico;
+        copia.entradasBTB = positivo("entradasBTB", entradasBTB);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comPreditor(TipoPreditor tipo) {
+        return comPreditor(tipo, bitsPreditor, bitsHistorico, entradasBTB);
+    }
+
+    /**
+     * Coloca caches de dados entre as estacoes de LOAD/STORE e a memoria (null desliga o nivel).
+     * Com caches a latencia de cada acesso é decidida pela cache quando ele começa a executar:
+     * a latencia de cada nivel consultado, mais a latencia de LOAD/STORE se todos falharem.
+     */
+    public ConfiguracaoSimulador comCaches(ConfiguracaoCache l1, ConfiguracaoCache l2) {
+        if (l1 == null && l2 != null) {
+            throw new IllegalArgumentException("Cache L2 sem L1");
+        }
+        Parametros copia = parametros();
+        copia.cacheL1 = l1;
+        copia.cacheL2 = l2;
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public ConfiguracaoSimulador comLatencia(OpCode op, int ciclos) {
+        Parametros copia = parametros();
+        copia.latencias[op.ordinal()] = positivo("latencia de " + op.getNome(), ciclos);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    /**
+     * Define a quantidade de unidades de um tipo e o intervalo de iniciação de cada uma
+     * (1 para uma unidade pipelined, igual à latencia para uma unidade não pipelined)
+     */
+    public ConfiguracaoSimulador comUnidades(TipoUnidadeFuncional tipo, int quantidade, int intervaloIniciacao) {
+        Parametros copia = parametros();
+        copia.numUnidades[tipo.ordinal()] = positivo("unidades " + tipo.getNome(), quantidade);
+        copia.intervalosIniciacao[tipo.ordinal()] = positivo("intervalo de iniciação " + tipo.getNome(), intervaloIniciacao);
+        return new ConfiguracaoSimulador(copia);
+    }
+
+    public int getTamanhoROB() {
+        return tamanhoROB;
+    }
+
+    public int getNumEstacoesAdd() {
+        return numEstacoesAdd;
+    }
+
+    public int getNumEstacoesMul() {
+        return numEstacoesMul;
+    }
+
+    public int getNumEstacoesLoad() {
+        return numEstacoesLoad;
+    }
+
+    public int getNumEstacoesBranches() {
+        return numEstacoesBranches;
+    }
+
+    public int getLarguraEmissao() {
+        return larguraEmissao;
+    }
+
+    public int getLarguraCommit() {
+        return larguraCommit;
+    }
+
+    public int getNumRegistradoresPublicos() {
+        return numRegistradoresPublicos;
+    }
+
+    public int getNumRegistradoresPrivados() {
+        return numRegistradoresPrivados;
+    }
+
+    public int getTamanhoMemoria() {
+        return tamanhoMemoria;
+    }
+
+    public int getJanelaWatchdog() {
+        return janelaWatchdog;
+    }
+
+    /**
+     * Ciclos no total até a simulação ser interrompida (0: sem limite)
+     */
+    public int getLimiteCiclos() {
+        return limiteCiclos;
+    }
+
+    public int getCapacidadeLog() {
+        return capacidadeLog;
+    }
+
+    public TipoPreditor getTipoPreditor() {
+        return tipoPreditor;
+    }
+
+    public int getBitsPreditor() {
+        return bitsPreditor;
+    }
+
+    public int getBitsHistorico() {
+        return bitsHistorico;
+    }
+
+    public int getEntradasBTB() {
+        return entradasBTB;
+    }
+
+    public ConfiguracaoCache getCacheL1() {
+        return cacheL1;
+    }
+
+    public ConfiguracaoCache getCacheL2() {
+        return cacheL2;
+    }
+
+    public int getLatencia(OpCode op) {
+        return latencias[op.ordinal()];
+    }
+
+    public int getNumUnidades(TipoUnidadeFuncional tipo) {
+        return numUnidades[tipo.ordinal()];
+    }
+
+    public int getIntervaloIniciacao(TipoUnidadeFuncional tipo) {
+        return intervalosIniciacao[tipo.ordinal()];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConfiguracaoSimulador)) return false;
+        ConfiguracaoSimulador outra = (ConfiguracaoSimulador) o;
+        return tamanhoROB == outra.tamanhoROB
+                && numEstacoesAdd == outra.numEstacoesAdd
+                && numEstacoesMul == outra.numEstacoesMul
+                && numEstacoesLoad == outra.numEstacoesLoad
+                && numEstacoesBranches == outra.numEstacoesBranches
+                && larguraEmissao == outra.larguraEmissao
+                && larguraCommit == outra.larguraCommit
+                && numRegistradoresPublicos == outra.numRegistradoresPublicos
+                && numRegistradoresPrivados == outra.numRegistradoresPrivados
+                && tamanhoMemoria == outra.tamanhoMemoria
+                && janelaWatchdog == outra.janelaWatchdog
+                && limiteCiclos == outra.limiteCiclos
+                && capacidadeLog == outra.capacidadeLog
+                && tipoPreditor == outra.tipoPreditor
+                && bitsPreditor == outra.bitsPreditor
+                && bitsHistorico == outra.bitsHistorico
+                && entradasBTB == outra.entradasBTB
+                && Objects.equals(cacheL1, outra.cacheL1)
+                && Objects.equals(cacheL2, outra.cacheL2)
+                && Arrays.equals(latencias, outra.latencias)
+                && Arrays.equals(numUnidades, outra.numUnidades)
+                && Arrays.equals(intervalosIniciacao, outra.intervalosIniciacao);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tamanhoROB, numEstacoesAdd, numEstacoesMul, numEstacoesLoad, numEstacoesBranches,
+                larguraEmissao, larguraCommit, numRegistradoresPublicos, numRegistradoresPrivados, tamanhoMemoria,
+                janelaWatchdog, limiteCiclos, capacidadeLog, tipoPreditor, bitsPreditor,
+                bitsHistorico, entradasBTB, cacheL1, cacheL2, Arrays.hashCode(latencias),
+                Arrays.hashCode(numUnidades), Arrays.hashCode(intervalosIniciacao));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append("ROB=").append(tamanhoROB)
+             .append(" Estacoes=").append(numEstacoesAdd).append('/').append(numEstacoesMul)
+             .append('/').append(numEstacoesLoad).append('/').append(numEstacoesBranches)
+             .append(" Largura=").append(larguraEmissao).append('/').append(larguraCommit)
+             .append(" Registradores=").append(numRegistradoresPublicos).append('/').append(numRegistradoresPrivados)
+             .append(" Memoria=").append(tamanhoMemoria)
+             .append(" Preditor=").append(tipoPreditor.getNome()).append('/').append(bitsPreditor)
+             .append('/').append(bitsHistorico).append(" BTB=").append(entradasBTB)
+             .append(" L1=").append(cacheL1 == null ? "-" : cacheL1)
+             .append(" L2=").append(cacheL2 == null ? "-" : cacheL2)
+             .append(" Latencias=");
+        for (OpCode op : OpCode.values()) {
+            texto.append(op.getNome()).append(':').append(latencias[op.ordinal()]).append(' ');
+        }
+        texto.append("Unidades=");
+        for (TipoUnidadeFuncional tipo : TipoUnidadeFuncional.values()) {
+            texto.append(tipo.getNome()).append(':').append(numUnidades[tipo.ordinal()])
+                 .append('/').append(intervalosIniciacao[tipo.ordinal()]).append(' ');
+        }
+        return texto.toString().trim();
+    }
+}
@@ -0,0 +1,32 @@
+package simulador;
+
+/**
+ * Erro de sintaxe em um programa, com a linha e a coluna (a partir de 1) onde foi encontrado
+ */
+public class ErroSintaxe extends IllegalArgumentException {
+    private final int linha;
+    private final int coluna;
+    private final String detalhe;
+
+    public ErroSintaxe(int linha, int coluna, String detalhe) {
+        super("Linha " + linha + ", coluna " + coluna + ": " + detalhe);
+        this.linha = linha;
+        this.coluna = coluna;
+        this.detalhe = detalhe;
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    public int getColuna() {
+        return coluna;
+    }
+
+    /**
+     * Mensagem sem a posição
+     */
+    public String getDetalhe() {
+        return detalhe;
+    }
+}
@@ -5,27 +5,37 @@ package simulador;
  */
 public class EstacaoDeReserva {
     private String nome;
+    private int indice; // indice da estacao entre todas as estacoes do simulador
     private boolean busy;
     private OpCode op;
-    private Float vj;  // Valor do operando j
-    private Float vk;  // Valor do operando k
-    private String qj;    // Nome do registrador privado que produzirá o operando j (-1 se não há dependência)
-    private String qk;    // Nome do registrador privado que produzirá o operando k (-1 se não há dependência)
-    private String dest;  // Nome do registrador privado de destino
+    private float vj;  // Valor do operando j
+    private float vk;  // Valor do operando k
+    private int qj;    // Indice do registrador privado que produzirá o operando j (-1 se não há dependência)
+    private int qk;    // Indice do registrador privado que produzirá o operando k (-1 se não há dependência)
+    private int dest;  // Indice do registrador privado de destino (-1 se não há)
     private int imediato; // Valor imediato // Endereço de memória para LOAD/STORE
     private int ciclosRestantes; // Ciclos restantes para completar a operação
+    private ReorderBufferSlot slotROB; // Slot do ROB da instrução em execução
+    private UnidadeFuncional unidade; // Unidade funcional que executa a operação (null se ainda não começou)
     
     public EstacaoDeReserva(String nome) {
+        this(nome, 0);
+    }
+
+    public EstacaoDeReserva(String nome, int indice) {
         this.nome = nome;
+        this.indice = indice;
         this.busy = false;
         this.op = null;
-        this.vj = null;
-        this.vk = null;
-        this.qj = null;
-        this.qk = null;
-        this.dest = null;
+        this.vj = 0.0f;
+        this.vk = 0.0f;
+        this.qj = -1;
+        this.qk = -1;
+        this.dest = -1;
         this.imediato = 0;
         this.ciclosRestantes = 0;
+        this.slotROB = null;
+        this.unidade = null;
     }
     
     /**
@@ -34,13 +44,15 @@ public class EstacaoDeReserva {
     public void limpar() {
         this.busy = false;
         this.op = null;
-        this.vj = null;
-        this.vk = null;
-        this.qj = null;
-        this.qk = null;
-        this.dest = null;
+        this.vj = 0.0f;
+        this.vk = 0.0f;
+        this.qj = -1;
+        this.qk = -1;
+        this.dest = -1;
         this.imediato = 0;
         this.ciclosRestantes = 0;
+        this.slotROB = null;
+        this.unidade = null;
     }
     
     /**
@@ -50,65 +62,21 @@ public class EstacaoDeReserva {
         boolean pronto = true;
         if (!busy) pronto = false;
         
-        // Para operações de memória, precisamos apenas do endereço base
-        if (op.isMemoryOperation()) {
-            pronto = qj == null; // Apenas vj precisa estar pronto
+        // LOAD precisa apenas da base (vj); STORE do valor (vj) e da base (vk)
+        if (op == OpCode.LOAD) {
+            pronto = qj < 0;
+        } else if (op == OpCode.STORE) {
+            pronto = qj < 0 && qk < 0;
         }
         else{
             // Para outras operações, verificamos se todos os operandos estão prontos
-            boolean vjPronto = (qj == null);
-            boolean vkPronto = (qk == null) || op.hasImmediate() || (op.isBranch() && vk != null);
+            boolean vjPronto = (qj < 0);
+            boolean vkPronto = (qk < 0) || op.hasImmediate();
             pronto = vjPronto && vkPronto;
         }
         return pronto;
     }
     
-    /**
-     * Inicia a execução da operação
-     */
-    public void iniciarExecucao() {
-        if (prontaParaExecucao()) {
-            // Define o número de ciclos baseado no tipo de operação
-            switch (op) {
-                case ADD:
-                    this.ciclosRestantes = 3;
-                    break;
-                case SUB:
-                    this.ciclosRestantes = 3;
-                    break;
-                case ADDI:
-                    this.ciclosRestantes = 3;
-                    break;
-                case SUBI:
-                    this.ciclosRestantes = 3;
-                    break;
-                case BEQ:
-                    this.ciclosRestantes = 3;
-                    break;
-                case MUL:
-                    this.ciclosRestantes = 3;
-                    break;
-                case MULI:
-                    this.ciclosRestantes = 3;
-                    break;
-                case DIV:
-                    this.ciclosRestantes = 3;
-                    break;
-                case DIVI:
-                    this.ciclosRestantes = 3;
-                    break;
-                case LOAD:
-                    this.ciclosRestantes = 5;
-                    break;
-                case STORE:
-                    this.ciclosRestantes = 5;
-                    break;
-                default:
-                    this.ciclosRestantes = 1;
-            }
-        }
-    }
-    
     /**
      * Executa um ciclo da operação
      * @return true se a operação foi completada
@@ -125,20 +93,20 @@ public class EstacaoDeReserva {
     /**
      * Calcula o resultado da operação
      */
-    public Float calcularResultado() {
+    public float calcularResultado() {
         if (op == null || !prontaParaExecucao()) {
-            return null;
+            throw new IllegalStateException("Estação " + nome + " não está pronta para calcular o resultado");
         }
         
         switch (op) {
             case ADD:
-                return vj + (vk != null ? vk : 0);
+                return vj + vk;
             case SUB:
-                return vj - (vk != null ? vk : 0);
+                return vj - vk;
             case MUL:
-                return vj * (vk != null ? vk : 0);
+                return vj * vk;
             case DIV:
-                if (vk != null && vk != 0) {
+                if (vk != 0) {
                     return vj / vk;
                 }
                 throw new RuntimeException("Divisão por zero!");
@@ -154,16 +122,29 @@ public class EstacaoDeReserva {
                 }
                 throw new RuntimeException("Divisão por zero!");
             case LOAD:
-                return (float) (vj + imediato); // Retorna o endereço calculado
             case STORE:
-                return (float) (vj + imediato); // Retorna o endereço calculado
+                return calcularEndereco(); // Retorna o endereço calculado
             case BEQ:
-                return vj.equals(vk) ? 1.0f : 0.0f; // 1 se iguais, 0 se diferentes
+                return vj == vk ? 1.0f : 0.0f; // 1 se iguais, 0 se diferentes
             default:
                 return 0.0f;
         }
     }
     
+    /**
+     * Endereço acessado por um LOAD/STORE (base + deslocamento; a base do STORE é o operando k)
+     */
+    public int calcularEndereco() {
+        return (int) ((op == OpCode.STORE ? vk : vj) + imediato);
+    }
+
+    /**
+     * Verifica se o registrador base de um LOAD/STORE já está disponivel (endereço conhecido)
+     */
+    public boolean isEnderecoPronto() {
+        return op == OpCode.STORE ? qk < 0 : qj < 0;
+    }
+
     // Getters e Setters
     public String getNome() {
         return nome;
@@ -173,6 +154,14 @@ public class EstacaoDeReserva {
         this.nome = nome;
     }
     
+    public int getIndice() {
+        return indice;
+    }
+    
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+    
     public boolean isBusy() {
         return busy;
     }
@@ -189,43 +178,43 @@ public class EstacaoDeReserva {
         this.op = op;
     }
     
-    public Float getVj() {
+    public float getVj() {
         return vj;
     }
     
-    public void setVj(Float vj) {
+    public void setVj(float vj) {
         this.vj = vj;
     }
     
-    public Float getVk() {
+    public float getVk() {
         return vk;
     }
     
-    public void setVk(Float vk) {
+    public void setVk(float vk) {
         this.vk = vk;
     }
     
-    public String getQj() {
+    public int getQj() {
         return qj;
     }
     
-    public void setQj(String qj) {
+    public void setQj(int qj) {
         this.qj = qj;
     }
     
-    public String getQk() {
+    public int getQk() {
         return qk;
     }
     
-    public void setQk(String qk) {
+    public void setQk(int qk) {
         this.qk = qk;
     }
     
-    public String getDest() {
+    public int getDest() {
         return dest;
     }
     
-    public void setDest(String dest) {
+    public void setDest(int dest) {
         this.dest = dest;
     }
     
@@ -244,4 +233,20 @@ public class EstacaoDeReserva {
     public void setCiclosRestantes(int ciclosRestantes) {
         this.ciclosRestantes = ciclosRestantes;
     }
+    
+    public ReorderBufferSlot getSlotROB() {
+        return slotROB;
+    }
+    
+    public void setSlotROB(ReorderBufferSlot slotROB) {
+        this.slotROB = slotROB;
+    }
+
+    public UnidadeFuncional getUnidade() {
+        return unidade;
+    }
+
+    public void setUnidade(UnidadeFuncional unidade) {
+        this.unidade = unidade;
+    }
 }
@@ -0,0 +1,119 @@
+package simulador;
+
+/**
+ * Copia do estado completo de um Simulador em um ciclo
+ * (ROB, estacoes, unidades funcionais, bancos de registradores, renomeação,
+ * registradores livres, memoria, caches, preditor de desvios, PC e contadores).
+ * É criada por Simulador.capturarEstado() e pode ser restaurada quantas vezes for preciso
+ * por Simulador.restaurarEstado() em qualquer simulador com a mesma configuração e programa.
+ * A memoria é compartilhada por paginas com o simulador (copy-on-write).
+ * Os campos são visiveis no pacote só para essas duas operações: fora delas a copia não
+ * deve ser alterada, senão as restaurações seguintes voltam a um estado corrompido.
+ */
+public final class EstadoSimulador {
+    // Identificação
+    ConfiguracaoSimulador configuracao;
+    Programa programa;
+
+    // Instrucoes
+    int[] estadoInstrucoes;
+    int[] execucoesInstrucoes;
+
+    // Registradores e renomeação
+    float[] bancoRegistradores;
+    float[] bancoPrivado;
+    int[] mapaRenomeacao;
+    int[] produtorPrivado; // indice do slot do ROB (-1 se nenhum)
+    int[] filaRegistradoresLivres;
+    int inicioFilaLivres;
+    int qtdeRegistradoresLivres;
+
+    // ROB
+    int robHead;
+    int robTail;
+    boolean[] slotBusy;
+    int[] slotIndiceInstrucao;
+    EstadoInstrucao[] slotEstado;
+    int[] slotRegistradorPublico;
+    int[] slotRegistradorRenomeado;
+    int[] slotMapeamentoAnterior;
+    float[] slotResultado;
+    boolean[] slotPronto;
+    int[] slotCicloIssue;
+    int[] slotCicloExecucao;
+    int[] slotCicloEscrita;
+    int[] slotCicloCommit;
+    int[] slotProximoPrevisto;
+    int[] slotHistoricoPrevisao;
+    boolean[] slotPrevisaoErrada;
+    int[] slotEndereco;
+
+    // Estacoes de reserva
+    boolean[] estacaoBusy;
+    OpCode[] estacaoOp;
+    float[] estacaoVj;
+    float[] estacaoVk;
+    int[] estacaoQj;
+    int[] estacaoQk;
+    int[] estacaoDest;
+    int[] estacaoImediato;
+    int[] estacaoCiclosRestantes;
+    int[] estacaoSlot; // indice do slot do ROB (-1 se nenhum)
+    int[] estacaoUnidade; // posição da unidade funcional entre as do seu tipo (-1 se nenhuma)
+
+    // Unidades funcionais, indexadas por TipoUnidadeFuncional.ordinal()
+    int[][] proximaAceitacao;
+
+    Memoria.Copia memoria;
+    CacheDados.Copia cacheL1; // null sem caches
+    CacheDados.Copia cacheL2;
+
+    // Preditor de desvios e BTB
+    byte[] contadoresPreditor; // null nos preditores estaticos
+    int historicoPreditor;
+    int[] tagsBTB;
+    int[] alvosBTB;
+
+    // Estado da simulação
+    int pc;
+    int cicloAtual;
+    int totalCiclos;
+    int ciclosBolha;
+    boolean simulacaoCompleta;
+    boolean simulacaoInterrompida;
+    int cicloUltimoCommit;
+    int instrucoesExecutadas;
+    int desviosCommitados;
+    int desviosPrevistosErrado;
+    int ciclosPenalidadeDesvio;
+    int cargasEncaminhadas;
+    int ciclosEsperaMemoria;
+    long eventosLog;
+
+    EstadoSimulador() {
+    }
+
+    public ConfiguracaoSimulador getConfiguracao() {
+        return configuracao;
+    }
+
+    public int getPc() {
+        return pc;
+    }
+
+    public int getCicloAtual() {
+        return cicloAtual;
+    }
+
+    public int getCiclosBolha() {
+        return ciclosBolha;
+    }
+
+    public int getInstrucoesExecutadas() {
+        return instrucoesExecutadas;
+    }
+
+    public boolean isSimulacaoCompleta() {
+        return simulacaoCompleta;
+    }
+}
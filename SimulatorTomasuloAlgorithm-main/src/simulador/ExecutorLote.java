@@ -0,0 +1,262 @@
+package simulador;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Executa o simulador sem interface grafica sobre um ou mais arquivos de programa
+ * e imprime as estatisticas de cada execução em JSON ou CSV.
+ *
+ * Uma execução interrompida pelo watchdog (nenhum commit em --watchdog ciclos) ou pelo limite
+ * opcional de --limite-ciclos ciclos no total aparece com 0 ciclos, e o motivo vai para a saida de erro.
+ *
+ * Uso: java -cp bin simulador.ExecutorLote [--formato json|csv] [--cache diretorio] [--preditor tipo] [--memoria palavras]
+ *      [--watchdog ciclos] [--limite-ciclos ciclos] [--l1 palavras,assoc,palavrasPorLinha,latencia[,lru|plru]] [--l2 ...] arquivo1.txt [arquivo2.txt ...]
+ */
+public class ExecutorLote {
+
+    /**
+     * Estatisticas de uma execução completa de um programa
+     */
+    public static class Resultado {
+        private final String arquivo;
+        private final int ciclos;
+        private final int ciclosSimulados;
+        private final int instrucoes;
+        private final int ciclosBolha;
+        private final double ipc;
+        private final int desvios;
+        private final int desviosPrevistosErrado;
+        private final int ciclosPenalidadeDesvio;
+        private final int acertosL1;
+        private final int falhasL1;
+        private final int acertosL2;
+        private final int falhasL2;
+        private final int cargasEncaminhadas;
+        private final int ciclosEsperaMemoria;
+        private final long tempoNanos;
+
+        public Resultado(String arquivo, int ciclos, int ciclosSimulados, int instrucoes, int ciclosBolha,
+                         double ipc, int desvios, int desviosPrevistosErrado, int ciclosPenalidadeDesvio,
+                         int acertosL1, int falhasL1, int acertosL2, int falhasL2, int cargasEncaminhadas,
+                         int ciclosEsperaMemoria, long tempoNanos) {
+            this.arquivo = arquivo;
+            this.ciclos = ciclos;
+            this.ciclosSimulados = ciclosSimulados;
+            this.instrucoes = instrucoes;
+            this.ciclosBolha = ciclosBolha;
+            this.ipc = ipc;
+            this.desvios = desvios;
+            this.desviosPrevistosErrado = desviosPrevistosErrado;
+            this.ciclosPenalidadeDesvio = ciclosPenalidadeDesvio;
+            this.acertosL1 = acertosL1;
+            this.falhasL1 = falhasL1;
+            this.acertosL2 = acertosL2;
+            this.falhasL2 = falhasL2;
+            this.cargasEncaminhadas = cargasEncaminhadas;
+            this.ciclosEsperaMemoria = ciclosEsperaMemoria;
+            this.tempoNanos = tempoNanos;
+        }
+
+        public String getArquivo() {
+            return arquivo;
+        }
+
+        public int getCiclos() {
+            return ciclos;
+        }
+
+        public int getCiclosSimulados() {
+            return ciclosSimulados;
+        }
+
+        public int getInstrucoes() {
+            return instrucoes;
+        }
+
+        public int getCiclosBolha() {
+            return ciclosBolha;
+        }
+
+        public double getIpc() {
+            return ipc;
+        }
+
+        public int getDesvios() {
+            return desvios;
+        }
+
+        public int getDesviosPrevistosErrado() {
+            return desviosPrevistosErrado;
+        }
+
+        public int getCiclosPenalidadeDesvio() {
+            return ciclosPenalidadeDesvio;
+        }
+
+        /**
+         * Fração dos desvios previstos certo (1 se não houve desvios)
+         */
+        public double getPrecisaoPredicao() {
+            return desvios == 0 ? 1.0 : (double) (desvios - desviosPrevistosErrado) / desvios;
+        }
+
+        public int getAcertosL1() {
+            return acertosL1;
+        }
+
+        public int getFalhasL1() {
+            return falhasL1;
+        }
+
+        public int getAcertosL2() {
+            return acertosL2;
+        }
+
+        public int getFalhasL2() {
+            return falhasL2;
+        }
+
+        public int getCargasEncaminhadas() {
+            return cargasEncaminhadas;
+        }
+
+        public int getCiclosEsperaMemoria() {
+            return ciclosEsperaMemoria;
+        }
+
+        public long getTempoNanos() {
+            return tempoNanos;
+        }
+
+        /**
+         * Velocidade da simulação em ciclos simulados por segundo de relogio
+         */
+        public double getCiclosPorSegundo() {
+            return tempoNanos == 0 ? 0.0 : ciclosSimulados * 1e9 / tempoNanos;
+        }
+    }
+
+    /**
+     * Carrega e executa um programa até o fim, sem registrar os eventos de cada ciclo
+     */
+    public static Resultado executar(Simulador simulador, String arquivo) throws IOException {
+        simulador.carregarInstrucoes(arquivo);
+        simulador.setNivelLog(NivelLog.RESUMO);
+        long inicio = System.nanoTime();
+        simulador.executarCompleto();
+        long tempo = System.nanoTime() - inicio;
+        CacheDados l1 = simulador.getCacheL1();
+        CacheDados l2 = simulador.getCacheL2();
+        return new Resultado(arquivo, simulador.getTotalCiclos(), simulador.getCicloAtual(),
+                simulador.getInstrucoesExecutadas(), simulador.getCiclosBolha(), simulador.calcularIPC(),
+                simulador.getDesvios(), simulador.getDesviosPrevistosErrado(), simulador.getCiclosPenalidadeDesvio(),
+                l1 != null ? l1.getAcertos() : 0, l1 != null ? l1.getFalhas() : 0,
+                l2 != null ? l2.getAcertos() : 0, l2 != null ? l2.getFalhas() : 0,
+                simulador.getCargasEncaminhadas(), simulador.getCiclosEsperaMemoria(), tempo);
+    }
+
+    public static String formatarCSV(List<Resultado> resultados) {
+        StringBuilder saida = new StringBuilder();
+        saida.append("arquivo,ciclos,ciclos_simulados,instrucoes,ciclos_bolha,ipc,desvios,desvios_previstos_errado,"
+                + "precisao_predicao,ciclos_penalidade_desvio,acertos_l1,falhas_l1,acertos_l2,falhas_l2,"
+                + "cargas_encaminhadas,ciclos_espera_memoria,tempo_ms,ciclos_por_segundo\n");
+        for (Resultado r : resultados) {
+            saida.append(String.format(Locale.ROOT, "\"%s\",%d,%d,%d,%d,%.4f,%d,%d,%.4f,%d,%d,%d,%d,%d,%d,%d,%.3f,%.1f%n",
+                    r.getArquivo().replace("\"", "\"\""), r.getCiclos(), r.getCiclosSimulados(), r.getInstrucoes(),
+                    r.getCiclosBolha(), r.getIpc(), r.getDesvios(), r.getDesviosPrevistosErrado(),
+                    r.getPrecisaoPredicao(), r.getCiclosPenalidadeDesvio(), r.getAcertosL1(), r.getFalhasL1(),
+                    r.getAcertosL2(), r.getFalhasL2(), r.getCargasEncaminhadas(), r.getCiclosEsperaMemoria(),
+                    r.getTempoNanos() / 1e6, r.getCiclosPorSegundo()));
+        }
+        return saida.toString();
+    }
+
+    public static String formatarJSON(List<Resultado> resultados) {
+        StringBuilder saida = new StringBuilder("[\n");
+        for (int i = 0; i < resultados.size(); i++) {
+            Resultado r = resultados.get(i);
+            saida.append(String.format(Locale.ROOT,
+                    "  {\"arquivo\": \"%s\", \"ciclos\": %d, \"ciclos_simulados\": %d, \"instrucoes\": %d, "
+                            + "\"ciclos_bolha\": %d, \"ipc\": %.4f, \"desvios\": %d, \"desvios_previstos_errado\": %d, "
+                            + "\"precisao_predicao\": %.4f, \"ciclos_penalidade_desvio\": %d, \"acertos_l1\": %d, "
+                            + "\"falhas_l1\": %d, \"acertos_l2\": %d, \"falhas_l2\": %d, \"cargas_encaminhadas\": %d, "
+                            + "\"ciclos_espera_memoria\": %d, \"tempo_ms\": %.3f, "
+                            + "\"ciclos_por_segundo\": %.1f}",
+                    r.getArquivo().replace("\\", "\\\\").replace("\"", "\\\""), r.getCiclos(), r.getCiclosSimulados(),
+                    r.getInstrucoes(), r.getCiclosBolha(), r.getIpc(), r.getDesvios(), r.getDesviosPrevistosErrado(),
+                    r.getPrecisaoPredicao(), r.getCiclosPenalidadeDesvio(), r.getAcertosL1(), r.getFalhasL1(),
+                    r.getAcertosL2(), r.getFalhasL2(), r.getCargasEncaminhadas(), r.getCiclosEsperaMemoria(),
+                    r.getTempoNanos() / 1e6, r.getCiclosPorSegundo()));
+            saida.append(i < resultados.size() - 1 ? ",\n" : "\n");
+        }
+        return saida.append("]\n").toString();
+    }
+
+    public static void main(String[] args) {
+        String formato = "json";
+        ConfiguracaoSimulador configuracao = ConfiguracaoSimulador.padrao();
+        ConfiguracaoCache l1 = null;
+        ConfiguracaoCache l2 = null;
+        List<String> arquivos = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--formato") && i + 1 < args.length) {
+                    formato = args[++i].toLowerCase(Locale.ROOT);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    InstructionParser.setDiretorioCache(Paths.get(args[++i]));
+                } else if (args[i].equals("--preditor") && i + 1 < args.length) {
+                    configuracao = configuracao.comPreditor(TipoPreditor.fromString(args[++i]));
+                } else if (args[i].equals("--memoria") && i + 1 < args.length) {
+                    configuracao = configuracao.comTamanhoMemoria(Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--watchdog") && i + 1 < args.length) {
+                    configuracao = configuracao.comLimites(Integer.parseInt(args[++i]), configuracao.getLimiteCiclos());
+                } else if (args[i].equals("--limite-ciclos") && i + 1 < args.length) {
+                    configuracao = configuracao.comLimites(configuracao.getJanelaWatchdog(), Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--l1") && i + 1 < args.length) {
+                    l1 = ConfiguracaoCache.fromString(args[++i]);
+                } else if (args[i].equals("--l2") && i + 1 < args.length) {
+                    l2 = ConfiguracaoCache.fromString(args[++i]);
+                } else {
+                    arquivos.add(args[i]);
+                }
+            }
+            configuracao = configuracao.comCaches(l1, l2);
+        } catch (RuntimeException e) {
+            System.err.println("Argumento inválido: " + e.getMessage());
+            arquivos.clear();
+        }
+        if (arquivos.isEmpty() || (!formato.equals("json") && !formato.equals("csv"))) {
+            System.err.println("Uso: java -cp bin simulador.ExecutorLote [--formato json|csv] [--cache diretorio] [--preditor tipo] [--memoria palavras]"
+                    + " [--watchdog ciclos] [--limite-ciclos ciclos] [--l1 palavras,assoc,palavrasPorLinha,latencia[,lru|plru]] [--l2 ...] arquivo1.txt [arquivo2.txt ...]");
+            System.exit(2);
+        }
+
+        List<Resultado> resultados = new ArrayList<>();
+        boolean falhou = false;
+        Simulador simulador = new Simulador(configuracao);
+        for (String arquivo : arquivos) {
+            try {
+                resultados.add(executar(simulador, arquivo));
+                if (simulador.isSimulacaoInterrompida()) {
+                    System.err.println("Simulacao de " + arquivo + " interrompida:");
+                    for (String evento : simulador.getLog().comoTexto()) {
+                        System.err.println("  " + evento);
+                    }
+                    falhou = true;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erro ao simular " + arquivo + ": " + e.getMessage());
+                falhou = true;
+            }
+        }
+
+        System.out.print(formato.equals("csv") ? formatarCSV(resultados) : formatarJSON(resultados));
+        if (falhou) {
+            System.exit(1);
+        }
+    }
+}
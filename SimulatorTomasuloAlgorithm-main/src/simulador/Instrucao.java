@@ -2,64 +2,38 @@ package simulador;
 
 /**
  * Classe que representa uma instrução MIPS
+ * (o simulador executa a forma compacta em Programa; o estado de execução fica no Simulador)
  */
 public class Instrucao {
     private OpCode op;
     private String destino;  // Registrador de destino
     private String reg1;  // Primeiro registrador fonte
     private String reg2;  // Segundo registrador fonte
+    private int indiceDestino; // Indice do registrador de destino (-1 se não há)
+    private int indiceReg1; // Indice do primeiro registrador fonte (-1 se não há)
+    private int indiceReg2; // Indice do segundo registrador fonte (-1 se não há)
     private int imediato; // Valor imediato
     private String instrucaoOriginal; // Texto original da instrução
-    private int ciclosDuracao; // Duração em ciclos da instrução
-    // Adiciona campo para controle de estado de execução
-    private int estadoExecucao = 0; // -1: pulada, 0: nenhuma, 1: lida, 2: executada, 3: resultado escrito, 4: commitada
-    private int qtdeExecucoes = 0;
     
     public Instrucao(OpCode op, String destino, String reg1, String reg2, int imediato, String instrucaoOriginal) {
+        this(op, destino, reg1, reg2, imediato, instrucaoOriginal,
+             InstructionParser.decodificarRegistrador(destino),
+             InstructionParser.decodificarRegistrador(reg1),
+             InstructionParser.decodificarRegistrador(reg2));
+    }
+
+    // Construtor com os indices dos registradores já decodificados pelo parser
+    public Instrucao(OpCode op, String destino, String reg1, String reg2, int imediato, String instrucaoOriginal,
+                     int indiceDestino, int indiceReg1, int indiceReg2) {
         this.op = op;
         this.destino = destino;
         this.reg1 = reg1;
         this.reg2 = reg2;
+        this.indiceDestino = indiceDestino;
+        this.indiceReg1 = indiceReg1;
+        this.indiceReg2 = indiceReg2;
         this.imediato = imediato;
         this.instrucaoOriginal = instrucaoOriginal;
-        switch (op) {
-                case ADD:
-                    this.ciclosDuracao = 1;
-                    break;
-                case SUB:
-                    this.ciclosDuracao = 1;
-                    break;
-                case ADDI:
-                    this.ciclosDuracao = 1;
-                    break;
-                case SUBI:
-                    this.ciclosDuracao = 1;
-                    break;
-                case BEQ:
-                    this.ciclosDuracao = 2;
-                    break;
-                case MUL:
-                    this.ciclosDuracao = 3;
-                    break;
-                case MULI:
-                    this.ciclosDuracao = 3;
-                    break;
-                case DIV:
-                    this.ciclosDuracao = 3;
-                    break;
-                case DIVI:
-                    this.ciclosDuracao = 3;
-                    break;
-                case LOAD:
-                    this.ciclosDuracao = 5;
-                    break;
-                case STORE:
-                    this.ciclosDuracao = 5;
-                    break;
-                default:
-                    this.ciclosDuracao = 1;
-            }
-        this.estadoExecucao = 0;
     }
     
     // Construtor para instruções sem valor imediato
@@ -87,6 +61,7 @@ public class Instrucao {
     
     public void setRd(String destino) {
         this.destino = destino;
+        this.indiceDestino = InstructionParser.decodificarRegistrador(destino);
     }
     
     public String getReg1() {
@@ -95,6 +70,7 @@ public class Instrucao {
     
     public void setReg1(String reg1) {
         this.reg1 = reg1;
+        this.indiceReg1 = InstructionParser.decodificarRegistrador(reg1);
     }
     
     public String getReg2() {
@@ -103,6 +79,19 @@ public class Instrucao {
     
     public void setReg2(String reg2) {
         this.reg2 = reg2;
+        this.indiceReg2 = InstructionParser.decodificarRegistrador(reg2);
+    }
+
+    public int getIndiceRd() {
+        return indiceDestino;
+    }
+
+    public int getIndiceReg1() {
+        return indiceReg1;
+    }
+
+    public int getIndiceReg2() {
+        return indiceReg2;
     }
     
     public int getImediato() {
@@ -121,32 +110,6 @@ public class Instrucao {
         this.instrucaoOriginal = instrucaoOriginal;
     }
 
-    public int getCiclosDuracao() {
-        return ciclosDuracao;
-    }
-    
-    public int getEstadoExecucao() {
-        return estadoExecucao;
-    }
-    public void setEstadoExecucao(int estadoExecucao) {
-        if ( estadoExecucao > this.estadoExecucao + 2){ // Verifica se o novo estado é válido
-            return;
-        }
-        this.estadoExecucao = estadoExecucao;
-    }
-
-    public void addExecucao() {
-        this.qtdeExecucoes++;
-    }
-
-    public void resetExecucoes() {
-        this.qtdeExecucoes = 0;
-    }
-
-    public int getQtdeExecucoes() {
-        return qtdeExecucoes;
-    }
-    
     @Override
     public String toString() {
         return instrucaoOriginal != null ? instrucaoOriginal : 
@@ -1,206 +1,392 @@
 package simulador;
 
-import java.io.*;
-import java.util.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Parser responsável por ler e converter instruções MIPS de um arquivo texto
+ * (a leitura em si é feita por LexerInstrucoes)
  */
 public class InstructionParser {
     
+    /** Tamanho aproximado dos trechos do arquivo lidos em paralelo (arquivos menores são lidos de uma vez) */
+    static final int TAMANHO_TRECHO = 4 << 20;
+
+    /** Propriedade do sistema com o diretorio padrão do cache de programas compilados */
+    public static final String PROPRIEDADE_CACHE = "simulador.cacheProgramas";
+
+    private static volatile Path diretorioCache = System.getProperty(PROPRIEDADE_CACHE) != null
+            ? Paths.get(System.getProperty(PROPRIEDADE_CACHE)) : null;
+
+    /**
+     * Parte do programa, começando e terminando em limites de linha, lida por uma thread
+     */
+    private static class Trecho {
+        private final ByteBuffer conteudo;
+        private final int inicio;
+        private final int fim;
+        private final Programa.Construtor programa = new Programa.Construtor();
+        private final List<ErroSintaxe> erros = new ArrayList<>();
+        private final List<String> linhasComErro = new ArrayList<>();
+        private int linhas; // quantidade de linhas do trecho
+
+        Trecho(ByteBuffer conteudo, int inicio, int fim) {
+            this.conteudo = conteudo;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        void parsear() {
+            // Linhas numeradas a partir de 1 dentro do trecho; o deslocamento é somado ao juntar
+            LexerInstrucoes lexer = new LexerInstrucoes(conteudo, inicio, fim, 1);
+            while (true) {
+                try {
+                    if (!lexer.proxima(programa)) {
+                        break;
+                    }
+                } catch (ErroSintaxe e) {
+                    erros.add(e);
+                    linhasComErro.add(lexer.getTextoLinha());
+                }
+            }
+            linhas = lexer.getLinha();
+        }
+    }
+
+    /**
+     * Lê os trechos em paralelo dividindo o intervalo ao meio (work-stealing)
+     */
+    private static class TarefaTrechos extends RecursiveAction {
+        private final Trecho[] trechos;
+        private final int inicio;
+        private final int fim;
+
+        TarefaTrechos(Trecho[] trechos, int inicio, int fim) {
+            this.trechos = trechos;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio == 1) {
+                trechos[inicio].parsear();
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new TarefaTrechos(trechos, inicio, meio), new TarefaTrechos(trechos, meio, fim));
+        }
+    }
+
     /**
      * Lê instruções de um arquivo texto
      * @param nomeArquivo Nome do arquivo a ser lido
      * @return Lista de instruções parseadas
      * @throws IOException Se houver erro na leitura do arquivo
+     * @see #lerPrograma(String)
      */
     public static List<Instrucao> lerInstrucoes(String nomeArquivo) throws IOException {
-        List<Instrucao> instrucoes = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(nomeArquivo))) {
-            String linha;
-            int numeroLinha = 0;
-            
-            while ((linha = reader.readLine()) != null) {
-                numeroLinha++;
-                linha = linha.trim();
-                
-                // Ignora linhas vazias e comentários
-                if (linha.isEmpty() || linha.startsWith("#") || linha.startsWith("//")) {
-                    continue;
-                }
-                
+        return lerPrograma(nomeArquivo).comoLista();
+    }
+
+    /**
+     * Lê instruções de um programa já carregado em memoria (ASCII ou UTF-8), entre position e limit
+     * @see #lerPrograma(ByteBuffer)
+     */
+    public static List<Instrucao> lerInstrucoes(ByteBuffer conteudo) {
+        return lerPrograma(conteudo).comoLista();
+    }
+
+    /**
+     * Lê um programa de um arquivo, na forma compacta usada pelo simulador.
+     * O arquivo pode ser texto ou um programa compilado (ver ProgramaBinario).
+     * Arquivos texto grandes são mapeados em memoria e divididos em trechos lidos em paralelo.
+     * Linhas com erro são informadas em System.err (com linha e coluna) e ignoradas.
+     * Com o cache ligado (ver setDiretorioCache()) um texto já compilado antes não é parseado de novo.
+     * @param nomeArquivo Nome do arquivo a ser lido
+     * @throws IOException Se houver erro na leitura do arquivo
+     */
+    public static Programa lerPrograma(String nomeArquivo) throws IOException {
+        Path arquivo = Paths.get(nomeArquivo);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (ProgramaBinario.isCompilado(canal)) {
+                return ProgramaBinario.ler(canal, arquivo, null);
+            }
+            List<ByteBuffer> partes = lerPartes(canal, nomeArquivo);
+            Path cache = diretorioCache;
+            if (cache == null) {
+                return lerTrechos(dividir(partes));
+            }
+
+            // O cache é indexado pelo conteudo, então arquivos renomeados ou copiados também o aproveitam
+            byte[] hash = hash(partes);
+            Path compilado = cache.resolve(hexadecimal(hash) + ProgramaBinario.EXTENSAO);
+            Programa programa = ProgramaBinario.lerDoCache(compilado, hash);
+            if (programa != null) {
+                return programa;
+            }
+            Trecho[] trechos = dividir(partes);
+            programa = lerTrechos(trechos);
+            // Programas com erros não vão para o cache, para que os erros continuem sendo informados
+            if (semErros(trechos)) {
                 try {
-                    Instrucao instrucao = parsearInstrucao(linha);
-                    instrucoes.add(instrucao);
-                } catch (Exception e) {
-                    System.err.println("Erro ao parsear linha " + numeroLinha + ": " + linha);
-                    System.err.println("Erro: " + e.getMessage());
+                    Files.createDirectories(cache);
+                    ProgramaBinario.gravar(programa, hash, compilado);
+                } catch (IOException e) {
+                    System.err.println("Aviso: não foi possivel gravar " + compilado + ": " + e.getMessage());
                 }
             }
+            return programa;
         }
-        
-        return instrucoes;
     }
-    
+
     /**
-     * Parseia uma única linha de instrução
-     * @param linha Linha de texto contendo a instrução
-     * @return Instrução parseada
+     * Lê um programa já carregado em memoria (ASCII ou UTF-8), entre position e limit.
+     * Programas grandes também são divididos em trechos lidos em paralelo.
      */
-    public static Instrucao parsearInstrucao(String linha) {
-        linha = linha.trim().toUpperCase();
-        
-        // Remove vírgulas extras e espaços
-        // Antes: ADD  R1,  R2, R3
-        linha = linha.replaceAll("\\s+", " "); 
-        // Depois: ADD R1, R2, R3
-
-
-        String[] partes = linha.split("\\s+", 2);
-        if (partes.length < 2) {
-            throw new IllegalArgumentException("Formato de instrução inválido: " + linha);
-        }
-        //Parte 0: ADD
-        String mnemonico = partes[0];
-        //Parte 1: R1, R2, R3
-        String operandos = partes[1];
-        
-        OpCode op = OpCode.fromString(mnemonico);
-        //System.out.println("Parseando instrução: " + op.toString() + " com operandos: " + operandos);
-        // Remove espaços ao redor das vírgulas
-        // Antes: R1,  R2,  R3
-        operandos = operandos.replaceAll("\\s*,\\s*", ",");
-        // Depois: R1,R2,R3
-        
-        switch (op) {
-            case LOAD:
-                return parsearLoad(op, operandos, linha);
-            case STORE:
-                return parsearStore(op, operandos, linha);
-            case BEQ:
-                return parsearBranch(op, operandos, linha);
-            case ADDI:
-            case SUBI:
-            case MULI:
-            case DIVI:
-                return parsearImediato(op, operandos, linha);
-            case ADD:
-            case SUB:
-            case MUL:
-            case DIV:
-                return parsearRegistrador(op, operandos, linha);
-            default:
-                throw new IllegalArgumentException("Operação não suportada: " + mnemonico);
+    public static Programa lerPrograma(ByteBuffer conteudo) {
+        List<Trecho> trechos = new ArrayList<>();
+        dividir(conteudo, conteudo.position() == 0 ? pularBOM(conteudo) : conteudo.position(), trechos);
+        return lerTrechos(trechos.toArray(new Trecho[0]));
+    }
+
+    /**
+     * Diretorio do cache de programas compilados (null se o cache está desligado).
+     * O padrão vem da propriedade do sistema simulador.cacheProgramas.
+     */
+    public static Path getDiretorioCache() {
+        return diretorioCache;
+    }
+
+    /**
+     * Liga o cache de programas compilados no diretorio indicado, ou desliga com null
+     */
+    public static void setDiretorioCache(Path diretorio) {
+        diretorioCache = diretorio;
+    }
+
+    /**
+     * SHA-256 do conteudo de um arquivo (a chave do cache de programas compilados)
+     */
+    static byte[] hashArquivo(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return hash(lerPartes(canal, arquivo.toString()));
         }
     }
-    
+
     /**
-     * Parseia instruções LOAD (ex: LOAD R1,100(R2))
-     */
-    private static Instrucao parsearLoad(OpCode op, String operandos, String linha) {
-        String[] partes = operandos.split(",", 2);
-        if (partes.length != 2) {
-            throw new IllegalArgumentException("Formato LOAD inválido: " + linha);
-        }
-        
-        String destino = partes[0].trim();
-        String enderecoStr = partes[1].trim();
-        
-        // Parseia formato: imediato(registrador)
-        if (enderecoStr.contains("(") && enderecoStr.contains(")")) {
-            int abreParenteses = enderecoStr.indexOf('(');
-            int fechaParenteses = enderecoStr.indexOf(')');
-            
-            String imediatoStr = enderecoStr.substring(0, abreParenteses);
-            String reg1 = enderecoStr.substring(abreParenteses + 1, fechaParenteses);
-            
-            int imediato = Integer.parseInt(imediatoStr);
-            return new Instrucao(op, destino, reg1, imediato, linha);
-        } else {
-            throw new IllegalArgumentException("Formato de endereço LOAD inválido: " + linha);
+     * Conteudo do arquivo: lido de uma vez se é pequeno, ou mapeado em partes que terminam em fim de linha
+     */
+    private static List<ByteBuffer> lerPartes(FileChannel canal, String nomeArquivo) throws IOException {
+        long tamanho = canal.size();
+        List<ByteBuffer> partes = new ArrayList<>();
+        if (tamanho <= TAMANHO_TRECHO) {
+            ByteBuffer conteudo = ByteBuffer.allocate((int) tamanho);
+            while (conteudo.hasRemaining() && canal.read(conteudo, conteudo.position()) >= 0) {
+            }
+            conteudo.flip();
+            partes.add(conteudo);
+            return partes;
+        }
+
+        // Cada parte é mapeada separadamente, então o arquivo pode passar de 2 GB
+        long inicio = 0;
+        while (inicio < tamanho) {
+            long fim = fimDoTrecho(canal, inicio, tamanho);
+            if (fim - inicio > Integer.MAX_VALUE) {
+                throw new IOException("Linha longa demais perto da posição " + inicio + " de " + nomeArquivo);
+            }
+            partes.add(canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio));
+            inicio = fim;
         }
+        return partes;
     }
-    
+
+    private static Trecho[] dividir(List<ByteBuffer> partes) {
+        List<Trecho> trechos = new ArrayList<>();
+        for (int i = 0; i < partes.size(); i++) {
+            ByteBuffer parte = partes.get(i);
+            dividir(parte, i == 0 ? pularBOM(parte) : 0, trechos);
+        }
+        return trechos.toArray(new Trecho[0]);
+    }
+
     /**
-     * Parseia instruções STORE (ex: STORE R1,100(R2))
-     */
-    private static Instrucao parsearStore(OpCode op, String operandos, String linha) {
-        String[] partes = operandos.split(",", 2);
-        if (partes.length != 2) {
-            throw new IllegalArgumentException("Formato STORE inválido: " + linha);
-        }
-        
-        String reg1 = partes[0].trim(); // Registrador com o valor a ser armazenado
-        String enderecoStr = partes[1].trim();
-        
-        // Parseia formato: imediato(registrador)
-        if (enderecoStr.contains("(") && enderecoStr.contains(")")) {
-            int abreParenteses = enderecoStr.indexOf('(');
-            int fechaParenteses = enderecoStr.indexOf(')');
-            
-            String imediatoStr = enderecoStr.substring(0, abreParenteses);
-            String rt = enderecoStr.substring(abreParenteses + 1, fechaParenteses);
-            
-            int imediato = Integer.parseInt(imediatoStr);
-            return new Instrucao(op, null, reg1, rt, imediato, linha); // STORE não tem destino
-        } else {
-            throw new IllegalArgumentException("Formato de endereço STORE inválido: " + linha);
+     * Divide o conteudo, a partir de inicio, em trechos de aproximadamente TAMANHO_TRECHO bytes
+     */
+    private static void dividir(ByteBuffer conteudo, int inicio, List<Trecho> trechos) {
+        while (inicio < conteudo.limit()) {
+            int fim = conteudo.limit();
+            if (fim - inicio > TAMANHO_TRECHO) {
+                // O trecho termina depois do primeiro '\n' a partir do tamanho desejado
+                fim = inicio + TAMANHO_TRECHO;
+                while (fim < conteudo.limit() && conteudo.get(fim - 1) != '\n') {
+                    fim++;
+                }
+            }
+            trechos.add(new Trecho(conteudo, inicio, fim));
+            inicio = fim;
         }
     }
-    
+
+    private static boolean semErros(Trecho[] trechos) {
+        for (Trecho trecho : trechos) {
+            if (!trecho.erros.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] hash(List<ByteBuffer> partes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponivel", e);
+        }
+        for (ByteBuffer parte : partes) {
+            ByteBuffer copia = parte.duplicate();
+            copia.position(0);
+            digest.update(copia);
+        }
+        return digest.digest();
+    }
+
+    private static String hexadecimal(byte[] bytes) {
+        StringBuilder texto = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            texto.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return texto.toString();
+    }
+
     /**
-     * Parseia instruções de branch (ex: BEQ R1,R2,100)
+     * Lê os trechos (em paralelo se houver mais de um) e junta as instruções na ordem do arquivo
      */
-    private static Instrucao parsearBranch(OpCode op, String operandos, String linha) {
-        String[] partes = operandos.split(",");
-        if (partes.length != 3) {
-            throw new IllegalArgumentException("Formato BEQ inválido: " + linha);
+    private static Programa lerTrechos(Trecho[] trechos) {
+        if (trechos.length == 1) {
+            trechos[0].parsear();
+        } else if (trechos.length > 1) {
+            new TarefaTrechos(trechos, 0, trechos.length).invoke();
         }
-        
-        String reg1 = partes[0].trim();
-        String rt = partes[1].trim();
-        int imediato = Integer.parseInt(partes[2].trim());
-        
-        return new Instrucao(op, null, reg1, rt, imediato, linha); // BEQ não tem destino
+
+        int linhasAnteriores = 0;
+        int total = 0;
+        for (Trecho trecho : trechos) {
+            total += trecho.programa.tamanho();
+            for (int i = 0; i < trecho.erros.size(); i++) {
+                ErroSintaxe erro = trecho.erros.get(i);
+                System.err.println("Erro ao parsear linha " + (linhasAnteriores + erro.getLinha())
+                        + ", coluna " + erro.getColuna() + ": " + trecho.linhasComErro.get(i));
+                System.err.println("Erro: " + erro.getDetalhe());
+            }
+            linhasAnteriores += trecho.linhas;
+        }
+        if (trechos.length == 1) {
+            return trechos[0].programa.construir();
+        }
+        Programa.Construtor programa = new Programa.Construtor(total);
+        for (Trecho trecho : trechos) {
+            programa.adicionar(trecho.programa.construir());
+        }
+        return programa.construir();
     }
-    
+
+    /**
+     * Posição do fim do trecho que começa em inicio: logo depois do primeiro '\n'
+     * a partir de TAMANHO_TRECHO bytes (ou o fim do arquivo)
+     */
+    private static long fimDoTrecho(FileChannel canal, long inicio, long tamanho) throws IOException {
+        long posicao = inicio + TAMANHO_TRECHO;
+        if (posicao >= tamanho) {
+            return tamanho;
+        }
+        ByteBuffer bloco = ByteBuffer.allocate(4096);
+        while (posicao < tamanho) {
+            bloco.clear();
+            int lidos = canal.read(bloco, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (bloco.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
     /**
-     * Parseia instruções com valor imediato (ex: ADDI R1,R2,100)
+     * Posição depois do BOM do UTF-8, se o conteudo começa com ele
      */
-    private static Instrucao parsearImediato(OpCode op, String operandos, String linha) {
-        String[] partes = operandos.split(",");
-        if (partes.length != 3) {
-            throw new IllegalArgumentException("Formato de instrução imediata inválido: " + linha);
+    private static int pularBOM(ByteBuffer conteudo) {
+        int inicio = conteudo.position();
+        if (conteudo.limit() - inicio >= 3 && (conteudo.get(inicio) & 0xFF) == 0xEF
+                && (conteudo.get(inicio + 1) & 0xFF) == 0xBB && (conteudo.get(inicio + 2) & 0xFF) == 0xBF) {
+            return inicio + 3;
         }
-        
-        String destino = partes[0].trim();
-        String reg1 = partes[1].trim();
-        int imediato = Integer.parseInt(partes[2].trim());
-        
-        return new Instrucao(op, destino, reg1, imediato, linha);
+        return inicio;
     }
     
     /**
-     * Pareg1eia instruções com três registradores (ex: ADD R1,R2,R3)
+     * Parseia uma única linha de instrução
+     * @param linha Linha de texto contendo a instrução
+     * @return Instrução parseada
+     * @throws ErroSintaxe se a linha não contém exatamente uma instrução valida
      */
-    private static Instrucao parsearRegistrador(OpCode op, String operandos, String linha) {
-        String[] partes = operandos.split(",");
-        if (partes.length != 3) {
-            throw new IllegalArgumentException("Formato de instrução de registrador inválido: " + linha);
+    public static Instrucao parsearInstrucao(String linha) {
+        byte[] bytes = linha.getBytes(StandardCharsets.UTF_8);
+        LexerInstrucoes lexer = new LexerInstrucoes(ByteBuffer.wrap(bytes), 0, bytes.length, 1);
+        Programa.Construtor programa = new Programa.Construtor(1);
+        if (!lexer.proxima(programa)) {
+            throw new ErroSintaxe(1, 1, "Formato de instrução inválido: linha sem instrução");
         }
-        
-        String destino = partes[0].trim();
-        String reg1 = partes[1].trim();
-        String rt = partes[2].trim();
-        
-        return new Instrucao(op, destino, reg1, rt, linha);
+        if (lexer.proxima(programa)) {
+            throw new ErroSintaxe(lexer.getLinha(), 1, "Mais de uma instrução na mesma linha");
+        }
+        return programa.construir().getInstrucao(0);
     }
     
+    /**
+     * Converte o nome de um registrador (ex: R5) no seu indice (ex: 5)
+     * @return indice do registrador, ou -1 se reg for null
+     */
+    public static int decodificarRegistrador(String reg) {
+        if (reg == null) {
+            return -1;
+        }
+        if (!isRegistradorValido(reg)) {
+            throw new IllegalArgumentException("Registrador inválido: " + reg);
+        }
+        return Integer.parseInt(reg.substring(1));
+    }
+
     /**
      * Valida se uma string é um registrador válido (formato Rx)
      */
     private static boolean isRegistradorValido(String reg) {
-        return reg.matches("R\\d+");
+        if (reg.length() < 2 || reg.length() > 11 || reg.charAt(0) != 'R') {
+            return false;
+        }
+        for (int i = 1; i < reg.length(); i++) {
+            if (reg.charAt(i) < '0' || reg.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,335 @@
+package simulador;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lexer das instruções, feito à mão para ler programas grandes.
+ * Percorre os bytes do programa (ASCII ou UTF-8) uma unica vez, linha a linha,
+ * sem criar strings intermediarias: o mnemonico vira uma chave numerica procurada
+ * no hash perfeito de OpCode, e registradores e imediatos são convertidos direto dos digitos.
+ * Cada instrução é gravada direto em um Programa.Construtor, sem criar nenhum objeto.
+ *
+ * Sintaxe aceita (maiusculas ou minusculas, espaços livres entre os elementos):
+ *   ADD/SUB/MUL/DIV    Rd, Rs, Rt
+ *   ADDI/SUBI/MULI/DIVI Rd, Rs, imediato
+ *   BEQ                Rs, Rt, imediato
+ *   LOAD/STORE         Rx, imediato(Rb)
+ * Comentarios começam com ';' (até o fim da linha), e linhas iniciadas por '#' ou '//' são ignoradas.
+ * O lexer só lê o buffer (com get absoluto), então varios lexers podem ler trechos do mesmo buffer em paralelo.
+ */
+final class LexerInstrucoes {
+    private final ByteBuffer buffer;
+    private final int fim;
+    private int proximaLinha;   // posição onde começa a proxima linha
+    private int linha;          // numero da linha atual (a partir de 1)
+    private int inicioLinha;    // posição do inicio da linha atual
+    private int fimLinha;       // fim da linha atual (sem o terminador)
+    private int p;              // cursor dentro da linha atual
+    private byte[] texto = new byte[64]; // espaço para montar o texto normalizado
+
+    /**
+     * @param buffer bytes do programa
+     * @param inicio posição do primeiro byte a ler (deve ser o inicio de uma linha)
+     * @param fim posição depois do ultimo byte a ler
+     * @param primeiraLinha numero da linha que começa em inicio (para as mensagens de erro)
+     */
+    LexerInstrucoes(ByteBuffer buffer, int inicio, int fim, int primeiraLinha) {
+        this.buffer = buffer;
+        this.fim = fim;
+        this.linha = primeiraLinha - 1;
+        this.proximaLinha = inicio;
+        this.inicioLinha = inicio;
+        this.fimLinha = inicio;
+    }
+
+    /**
+     * Lê a proxima instrução, pulando linhas vazias e comentarios, e a acrescenta ao programa.
+     * Em caso de erro o lexer já fica posicionado na linha seguinte, e a leitura pode continuar.
+     * @return false no fim do programa
+     * @throws ErroSintaxe se a linha não é uma instrução valida
+     */
+    boolean proxima(Programa.Construtor programa) {
+        while (proximaLinha < fim) {
+            abrirLinha();
+            if (parsearLinha(programa)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Numero da ultima linha lida
+     */
+    int getLinha() {
+        return linha;
+    }
+
+    /**
+     * Texto da ultima linha lida, sem comentario e sem espaços nas pontas (para mensagens de erro)
+     */
+    String getTextoLinha() {
+        int fimTexto = inicioLinha;
+        while (fimTexto < fimLinha && buffer.get(fimTexto) != ';') {
+            fimTexto++;
+        }
+        return texto(inicioLinha, fimTexto).trim();
+    }
+
+    private void abrirLinha() {
+        linha++;
+        inicioLinha = proximaLinha;
+        int i = inicioLinha;
+        while (i < fim) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            i++;
+        }
+        fimLinha = i;
+        // Terminadores aceitos: \n, \r\n e \r
+        if (i < fim && buffer.get(i) == '\r') {
+            i++;
+        }
+        if (i < fim && buffer.get(i) == '\n') {
+            i++;
+        }
+        proximaLinha = i;
+    }
+
+    private boolean parsearLinha(Programa.Construtor programa) {
+        p = inicioLinha;
+        pularEspacos();
+        if (fimDoConteudo()) {
+            return false;
+        }
+        byte primeiro = buffer.get(p);
+        if (primeiro == '#' || (primeiro == '/' && p + 1 < fimLinha && buffer.get(p + 1) == '/')) {
+            return false;
+        }
+
+        // Mnemonico
+        int inicioMnemonico = p;
+        long chave = 0;
+        while (p < fimLinha && !isEspaco(buffer.get(p)) && buffer.get(p) != ';') {
+            chave = OpCode.acrescentarChave(chave, buffer.get(p));
+            p++;
+        }
+        int fimMnemonico = p;
+        pularEspacos();
+        if (fimDoConteudo()) {
+            throw erro(inicioMnemonico, "Formato de instrução inválido, faltam os operandos: "
+                    + texto(inicioMnemonico, fimMnemonico));
+        }
+        OpCode op = fimMnemonico - inicioMnemonico <= OpCode.TAMANHO_MAXIMO_MNEMONICO ? OpCode.procurar(chave) : null;
+        if (op == null) {
+            throw erro(inicioMnemonico, "OpCode não reconhecido: " + texto(inicioMnemonico, fimMnemonico));
+        }
+
+        int indiceDestino = -1;
+        int indiceReg1 = -1;
+        int indiceReg2 = -1;
+        int imediato = 0;
+        switch (op) {
+            case LOAD:
+                // LOAD Rd, imediato(Rb)
+                indiceDestino = lerRegistrador();
+                esperar(',');
+                imediato = lerImediato();
+                esperar('(');
+                indiceReg1 = lerRegistrador();
+                esperar(')');
+                break;
+            case STORE:
+                // STORE Rs, imediato(Rb): reg1 é o valor a guardar e reg2 a base
+                indiceReg1 = lerRegistrador();
+                esperar(',');
+                imediato = lerImediato();
+                esperar('(');
+                indiceReg2 = lerRegistrador();
+                esperar(')');
+                break;
+            case BEQ:
+                indiceReg1 = lerRegistrador();
+                esperar(',');
+                indiceReg2 = lerRegistrador();
+                esperar(',');
+                imediato = lerImediato();
+                break;
+            case ADDI:
+            case SUBI:
+            case MULI:
+            case DIVI:
+                indiceDestino = lerRegistrador();
+                esperar(',');
+                indiceReg1 = lerRegistrador();
+                esperar(',');
+                imediato = lerImediato();
+                break;
+            default:
+                indiceDestino = lerRegistrador();
+                esperar(',');
+                indiceReg1 = lerRegistrador();
+                esperar(',');
+                indiceReg2 = lerRegistrador();
+                break;
+        }
+        pularEspacos();
+        if (!fimDoConteudo()) {
+            throw erro(p, "Caractere inesperado depois da instrução: '" + texto(p, p + 1) + "'");
+        }
+        int tamanhoTexto = textoNormalizado(inicioMnemonico, p);
+        programa.adicionar(op, indiceDestino, indiceReg1, indiceReg2, imediato, texto, 0, tamanhoTexto);
+        return true;
+    }
+
+    /**
+     * Lê um registrador (R seguido de digitos)
+     */
+    private int lerRegistrador() {
+        pularEspacos();
+        int inicio = p;
+        if (p >= fimLinha || (buffer.get(p) != 'R' && buffer.get(p) != 'r')) {
+            throw erro(inicio, "Registrador esperado");
+        }
+        p++;
+        long indice = 0;
+        int inicioDigitos = p;
+        while (p < fimLinha && isDigito(buffer.get(p))) {
+            indice = indice * 10 + (buffer.get(p) - '0');
+            if (indice > Programa.MAIOR_REGISTRADOR) {
+                throw erro(inicio, "Registrador fora do limite R0-R" + Programa.MAIOR_REGISTRADOR + ": " + texto(inicio, fimToken(p)));
+            }
+            p++;
+        }
+        if (p == inicioDigitos || (p < fimLinha && isLetraOuDigito(buffer.get(p)))) {
+            throw erro(inicio, "Registrador inválido: " + texto(inicio, fimToken(p)));
+        }
+        return (int) indice;
+    }
+
+    /**
+     * Lê um inteiro com sinal opcional
+     */
+    private int lerImediato() {
+        pularEspacos();
+        int inicio = p;
+        boolean negativo = false;
+        if (p < fimLinha && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negativo = buffer.get(p) == '-';
+            p++;
+        }
+        int inicioDigitos = p;
+        long valor = 0;
+        while (p < fimLinha && isDigito(buffer.get(p))) {
+            valor = valor * 10 + (buffer.get(p) - '0');
+            if (valor > (long) Integer.MAX_VALUE + 1) {
+                throw erro(inicio, "Valor imediato fora do intervalo de int: " + texto(inicio, fimToken(p)));
+            }
+            p++;
+        }
+        if (p == inicioDigitos || (p < fimLinha && isLetraOuDigito(buffer.get(p)))) {
+            throw erro(inicio, "Valor imediato inválido: " + texto(inicio, fimToken(p)));
+        }
+        if (negativo) {
+            valor = -valor;
+        }
+        if (valor > Integer.MAX_VALUE) {
+            throw erro(inicio, "Valor imediato fora do intervalo de int: " + texto(inicio, p));
+        }
+        return (int) valor;
+    }
+
+    private void esperar(char caractere) {
+        pularEspacos();
+        if (p >= fimLinha || buffer.get(p) != caractere) {
+            throw erro(p, "'" + caractere + "' esperado");
+        }
+        p++;
+    }
+
+    private void pularEspacos() {
+        while (p < fimLinha && isEspaco(buffer.get(p))) {
+            p++;
+        }
+    }
+
+    /**
+     * Verifica se o cursor chegou ao fim da linha ou a um comentario
+     */
+    private boolean fimDoConteudo() {
+        return p >= fimLinha || buffer.get(p) == ';';
+    }
+
+    private int fimToken(int posicao) {
+        while (posicao < fimLinha && isLetraOuDigito(buffer.get(posicao))) {
+            posicao++;
+        }
+        return posicao;
+    }
+
+    private static boolean isEspaco(byte b) {
+        return b == ' ' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    private static boolean isDigito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetraOuDigito(byte b) {
+        return isDigito(b) || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '_';
+    }
+
+    /**
+     * Monta em texto a instrução em maiusculas, com cada sequencia de espaços trocada por um espaço
+     * @return tamanho do texto montado
+     */
+    private int textoNormalizado(int inicio, int fimInstrucao) {
+        if (texto.length < fimInstrucao - inicio) {
+            texto = new byte[Math.max(texto.length * 2, fimInstrucao - inicio)];
+        }
+        int n = 0;
+        boolean espaco = false;
+        for (int i = inicio; i < fimInstrucao; i++) {
+            byte b = buffer.get(i);
+            if (isEspaco(b)) {
+                espaco = true;
+                continue;
+            }
+            if (espaco) {
+                texto[n++] = ' ';
+                espaco = false;
+            }
+            texto[n++] = b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+        }
+        return n;
+    }
+
+    private String texto(int inicio, int fimTexto) {
+        return new String(bytes(inicio, fimTexto), StandardCharsets.UTF_8);
+    }
+
+    private byte[] bytes(int inicio, int fimTexto) {
+        byte[] bytes = new byte[fimTexto - inicio];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(inicio + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Erro na posição indicada da linha atual; o lexer continua na proxima linha
+     */
+    private ErroSintaxe erro(int posicao, String detalhe) {
+        // A coluna conta caracteres, não bytes (bytes de continuação do UTF-8 não contam)
+        int coluna = 1;
+        for (int i = inicioLinha; i < posicao && i < fimLinha; i++) {
+            if ((buffer.get(i) & 0xC0) != 0x80) {
+                coluna++;
+            }
+        }
+        return new ErroSintaxe(linha, coluna, detalhe);
+    }
+}
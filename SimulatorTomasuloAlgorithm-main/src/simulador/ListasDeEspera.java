@@ -0,0 +1,106 @@
+package simulador;
+
+import java.util.Arrays;
+
+/**
+ * Listas de espera do Common Data Bus (CDB).
+ * Para cada registrador privado guarda os operandos (estacao, j/k) que aguardam o seu valor,
+ * de forma que um broadcast visite apenas os consumidores reais.
+ * As listas são duplamente encadeadas dentro de arrays, sem alocação durante a simulação.
+ * Cada operando em espera é identificado por (indice da estacao * 2 + operando).
+ */
+class ListasDeEspera {
+    static final int OPERANDO_J = 0;
+    static final int OPERANDO_K = 1;
+
+    private final int[] cabeca;     // registrador privado -> primeiro operando em espera (-1 se vazia)
+    private final int[] proximo;    // operando em espera -> proximo da mesma lista (-1 se é o ultimo)
+    private final int[] anterior;   // operando em espera -> anterior da mesma lista (-1 se é a cabeça)
+    private final int[] aguardando; // operando em espera -> registrador privado aguardado (-1 se nenhum)
+
+    ListasDeEspera(int numRegistradoresPrivados, int numEstacoes) {
+        cabeca = new int[numRegistradoresPrivados];
+        proximo = new int[numEstacoes * 2];
+        anterior = new int[numEstacoes * 2];
+        aguardando = new int[numEstacoes * 2];
+        limpar();
+    }
+
+    /**
+     * Esvazia todas as listas
+     */
+    void limpar() {
+        Arrays.fill(cabeca, -1);
+        Arrays.fill(proximo, -1);
+        Arrays.fill(anterior, -1);
+        Arrays.fill(aguardando, -1);
+    }
+
+    /**
+     * Registra que o operando da estacao aguarda o valor do registrador privado
+     */
+    void registrar(int regPrivado, int estacao, int operando) {
+        int espera = estacao * 2 + operando;
+        remover(estacao, operando);
+        aguardando[espera] = regPrivado;
+        anterior[espera] = -1;
+        proximo[espera] = cabeca[regPrivado];
+        if (cabeca[regPrivado] >= 0) {
+            anterior[cabeca[regPrivado]] = espera;
+        }
+        cabeca[regPrivado] = espera;
+    }
+
+    /**
+     * Retira o operando da estacao da lista em que estiver (ex: estacao cancelada)
+     */
+    void remover(int estacao, int operando) {
+        int espera = estacao * 2 + operando;
+        int regPrivado = aguardando[espera];
+        if (regPrivado < 0) {
+            return;
+        }
+        if (anterior[espera] >= 0) {
+            proximo[anterior[espera]] = proximo[espera];
+        } else {
+            cabeca[regPrivado] = proximo[espera];
+        }
+        if (proximo[espera] >= 0) {
+            anterior[proximo[espera]] = anterior[espera];
+        }
+        aguardando[espera] = -1;
+        proximo[espera] = -1;
+        anterior[espera] = -1;
+    }
+
+    /**
+     * Esvazia a lista de um registrador privado depois do broadcast do seu valor
+     */
+    void esvaziar(int regPrivado) {
+        int espera = cabeca[regPrivado];
+        while (espera >= 0) {
+            int seguinte = proximo[espera];
+            aguardando[espera] = -1;
+            proximo[espera] = -1;
+            anterior[espera] = -1;
+            espera = seguinte;
+        }
+        cabeca[regPrivado] = -1;
+    }
+
+    int primeiro(int regPrivado) {
+        return cabeca[regPrivado];
+    }
+
+    int proximo(int espera) {
+        return proximo[espera];
+    }
+
+    static int estacao(int espera) {
+        return espera >> 1;
+    }
+
+    static int operando(int espera) {
+        return espera & 1;
+    }
+}
@@ -0,0 +1,362 @@
+package simulador;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Log de execução estruturado.
+ * Cada evento guarda apenas numeros (tipo, ciclo, estacao, slot do ROB, instrucao e dois
+ * parametros) em arrays paralelos que funcionam como um buffer circular de capacidade fixa:
+ * quando o buffer enche, os eventos mais antigos são descartados.
+ * O texto de um evento só é montado quando alguém o lê, e com o nivel DESLIGADO
+ * registrar um evento não faz nada além de uma comparação.
+ */
+public class LogEventos {
+    private static final int CAPACIDADE_INICIAL = 64;
+
+    private final int capacidade;
+    private NivelLog nivel;
+
+    // Eventos, indexados por (sequencial % capacidade)
+    private byte[] tipos;
+    private int[] ciclos;
+    private int[] estacoes;
+    private int[] slotsROB;
+    private int[] instrucoes;
+    private int[] parametrosA;
+    private int[] parametrosB;
+    private float[] valores;
+    private long totalRegistrados; // sequencial do proximo evento
+    private long primeiroValido; // eventos anteriores foram sobrescritos (ver truncar())
+    private int geracao; // muda sempre que eventos já registrados são descartados por limpar() ou truncar()
+
+    // Contexto usado para formatar os eventos
+    private Programa programa = Programa.VAZIO;
+    private EstacaoDeReserva[] estacoesDeReserva = new EstacaoDeReserva[0];
+    private String origemPrograma;
+
+    /**
+     * Evento do log. O texto é formatado apenas quando pedido.
+     */
+    public static class Evento {
+        private final long sequencial;
+        private final TipoEvento tipo;
+        private final int ciclo;
+        private final int estacao;
+        private final int slotROB;
+        private final int instrucao;
+        private final int parametroA;
+        private final int parametroB;
+        private final float valor;
+        private final Programa programa;
+        private final EstacaoDeReserva[] estacoesDeReserva;
+        private final String origemPrograma;
+
+        private Evento(LogEventos log, long sequencial) {
+            int i = (int) (sequencial % log.capacidade);
+            this.sequencial = sequencial;
+            this.tipo = TipoEvento.values()[log.tipos[i]];
+            this.ciclo = log.ciclos[i];
+            this.estacao = log.estacoes[i];
+            this.slotROB = log.slotsROB[i];
+            this.instrucao = log.instrucoes[i];
+            this.parametroA = log.parametrosA[i];
+            this.parametroB = log.parametrosB[i];
+            this.valor = log.valores[i];
+            this.programa = log.programa;
+            this.estacoesDeReserva = log.estacoesDeReserva;
+            this.origemPrograma = log.origemPrograma;
+        }
+
+        public long getSequencial() {
+            return sequencial;
+        }
+
+        public TipoEvento getTipo() {
+            return tipo;
+        }
+
+        public int getCiclo() {
+            return ciclo;
+        }
+
+        /** Indice da estacao de reserva envolvida (-1 se não há) */
+        public int getEstacao() {
+            return estacao;
+        }
+
+        /** Indice do slot do ROB envolvido (-1 se não há) */
+        public int getSlotROB() {
+            return slotROB;
+        }
+
+        /** Posição no programa da instrucao envolvida (-1 se não há) */
+        public int getInstrucao() {
+            return instrucao;
+        }
+
+        public int getParametroA() {
+            return parametroA;
+        }
+
+        public int getParametroB() {
+            return parametroB;
+        }
+
+        public float getValor() {
+            return valor;
+        }
+
+        public String getTexto() {
+            return formatar(this);
+        }
+
+        @Override
+        public String toString() {
+            return getTexto();
+        }
+    }
+
+    public LogEventos(int capacidade, NivelLog nivel) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("capacidade do log deve ser positiva: " + capacidade);
+        }
+        this.capacidade = capacidade;
+        this.nivel = nivel;
+        // Os arrays só são alocados no primeiro evento, e crescem até a capacidade
+        this.tipos = new byte[0];
+        this.ciclos = new int[0];
+        this.estacoes = new int[0];
+        this.slotsROB = new int[0];
+        this.instrucoes = new int[0];
+        this.parametrosA = new int[0];
+        this.parametrosB = new int[0];
+        this.valores = new float[0];
+    }
+
+    /**
+     * Verifica se eventos do tipo são registrados no nivel atual
+     */
+    public boolean registra(TipoEvento tipo) {
+        return tipo.getNivel().ordinal() <= nivel.ordinal();
+    }
+
+    /**
+     * Registra um evento (parametros sem significado para o tipo devem ser -1)
+     */
+    public void registrar(TipoEvento tipo, int ciclo, int estacao, int slotROB, int instrucao,
+                          int parametroA, int parametroB, float valor) {
+        if (!registra(tipo)) {
+            return;
+        }
+        if (totalRegistrados >= tipos.length && tipos.length < capacidade) {
+            crescer();
+        }
+        int i = (int) (totalRegistrados % capacidade);
+        tipos[i] = (byte) tipo.ordinal();
+        ciclos[i] = ciclo;
+        estacoes[i] = estacao;
+        slotsROB[i] = slotROB;
+        instrucoes[i] = instrucao;
+        parametrosA[i] = parametroA;
+        parametrosB[i] = parametroB;
+        valores[i] = valor;
+        totalRegistrados++;
+    }
+
+    public void registrar(TipoEvento tipo, int ciclo) {
+        registrar(tipo, ciclo, -1, -1, -1, -1, -1, 0.0f);
+    }
+
+    private void crescer() {
+        int novoTamanho = Math.min(capacidade, Math.max(CAPACIDADE_INICIAL, tipos.length * 2));
+        tipos = Arrays.copyOf(tipos, novoTamanho);
+        ciclos = Arrays.copyOf(ciclos, novoTamanho);
+        estacoes = Arrays.copyOf(estacoes, novoTamanho);
+        slotsROB = Arrays.copyOf(slotsROB, novoTamanho);
+        instrucoes = Arrays.copyOf(instrucoes, novoTamanho);
+        parametrosA = Arrays.copyOf(parametrosA, novoTamanho);
+        parametrosB = Arrays.copyOf(parametrosB, novoTamanho);
+        valores = Arrays.copyOf(valores, novoTamanho);
+    }
+
+    /**
+     * Descarta todos os eventos, mantendo os arrays já alocados
+     */
+    public void limpar() {
+        totalRegistrados = 0;
+        primeiroValido = 0;
+        geracao++;
+    }
+
+    /**
+     * Descarta os eventos registrados depois dos primeiros total eventos
+     * (ex: ao voltar o simulador para um estado anterior)
+     */
+    public void truncar(long total) {
+        if (total >= totalRegistrados) {
+            return;
+        }
+        // Os eventos que dividiam posição do buffer com os descartados já foram sobrescritos
+        primeiroValido = Math.min(total, Math.max(primeiroValido, totalRegistrados - capacidade));
+        totalRegistrados = total;
+        geracao++;
+    }
+
+    /**
+     * Define o programa usado para formatar os eventos (origem é o arquivo, ou null)
+     */
+    void setPrograma(Programa programa, String origemPrograma) {
+        this.programa = programa;
+        this.origemPrograma = origemPrograma;
+    }
+
+    /**
+     * Define as estacoes usadas para formatar os eventos
+     */
+    void setEstacoes(EstacaoDeReserva[] estacoesDeReserva) {
+        this.estacoesDeReserva = estacoesDeReserva;
+    }
+
+    /**
+     * Quantidade de eventos guardados no buffer
+     */
+    public int tamanho() {
+        return (int) (totalRegistrados - Math.max(primeiroValido, totalRegistrados - capacidade));
+    }
+
+    /**
+     * Quantidade de eventos registrados desde o ultimo limpar(), incluindo os já descartados
+     */
+    public long getTotalRegistrados() {
+        return totalRegistrados;
+    }
+
+    /**
+     * Muda sempre que eventos são descartados por limpar() ou truncar(): quem acompanha
+     * o log pelo sequencial precisa recomeçar
+     */
+    public int getGeracao() {
+        return geracao;
+    }
+
+    /**
+     * Sequencial do evento mais antigo ainda guardado
+     */
+    public long getPrimeiroSequencial() {
+        return totalRegistrados - tamanho();
+    }
+
+    /**
+     * Evento guardado na posição indicada (0 é o mais antigo ainda guardado)
+     */
+    public Evento getEvento(int posicao) {
+        if (posicao < 0 || posicao >= tamanho()) {
+            throw new IndexOutOfBoundsException("Evento " + posicao + " fora do log de " + tamanho() + " eventos");
+        }
+        return new Evento(this, getPrimeiroSequencial() + posicao);
+    }
+
+    /**
+     * Visão dos eventos guardados como texto, formatados apenas quando lidos
+     */
+    public List<String> comoTexto() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int posicao) {
+                return getEvento(posicao).getTexto();
+            }
+
+            @Override
+            public int size() {
+                return tamanho();
+            }
+        };
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public NivelLog getNivel() {
+        return nivel;
+    }
+
+    public void setNivel(NivelLog nivel) {
+        this.nivel = nivel;
+    }
+
+    private static String formatar(Evento e) {
+        switch (e.tipo) {
+            case CARREGAMENTO:
+                return "Carregadas " + e.parametroA + " instrucoes"
+                        + (e.origemPrograma != null ? " do arquivo: " + e.origemPrograma : "");
+            case CICLO:
+                return "Ciclo " + (e.ciclo + 1);
+            case SEPARADOR:
+                return "-------------------------------------------------------------";
+            case LIMITE_CICLOS:
+                return "Limite de " + e.parametroA + " ciclos atingido sem terminar o programa";
+            case WATCHDOG:
+                if (e.slotROB < 0) {
+                    return "Watchdog: nenhum commit nos ultimos " + e.parametroA + " ciclos, ROB vazio";
+                }
+                return "Watchdog: nenhum commit nos ultimos " + e.parametroA + " ciclos, cabeca do ROB (slot "
+                        + e.slotROB + "): " + instrucao(e, e.instrucao)
+                        + (e.parametroB != 0 ? " com resultado pronto" : " aguardando resultado");
+            case ESTACAO_BLOQUEADA: {
+                String motivo = "Watchdog: estacao " + estacao(e) + " ocupada com " + instrucao(e, e.instrucao);
+                if (e.parametroA < 0 && e.parametroB < 0) {
+                    return motivo + " sem operandos pendentes";
+                }
+                motivo += " aguardando ";
+                if (e.parametroA >= 0) motivo += "Qj=" + Simulador.nomeRegistradorPrivado(e.parametroA) + " ";
+                if (e.parametroB >= 0) motivo += "Qk=" + Simulador.nomeRegistradorPrivado(e.parametroB);
+                return motivo.trim();
+            }
+            case SIMULACAO_INTERROMPIDA:
+                return "Simulacao interrompida " + (e.parametroB != 0 ? "pelo limite de ciclos" : "pelo watchdog")
+                        + " no ciclo " + (e.ciclo + 1) + ". Total de ciclos gastos: " + e.parametroA;
+            case FIM_SIMULACAO:
+                return "Simulacao completa. Total de ciclos gastos: " + e.parametroA;
+            case CONFLITO:
+                return "Conflito verdadeiro: instrucao " + instrucao(e, e.instrucao) + " em conflito com "
+                        + instrucao(e, e.parametroA) + " em " + Simulador.nomeRegistradorPublico(e.parametroB);
+            case BOLHA_OPERANDOS: {
+                String motivo = "Bolha criada: estacao " + estacao(e) + " aguardando operandos ";
+                if (e.parametroA >= 0) motivo += "Qj=" + Simulador.nomeRegistradorPrivado(e.parametroA) + " ";
+                if (e.parametroB >= 0) motivo += "Qk=" + Simulador.nomeRegistradorPrivado(e.parametroB);
+                return motivo.trim();
+            }
+            case BOLHA_UNIDADE:
+                return "Bolha criada: estacao " + estacao(e) + " aguardando unidade funcional "
+                        + TipoUnidadeFuncional.values()[e.parametroA].getNome();
+            case BOLHA_MEMORIA:
+                return "Bolha criada: estacao " + estacao(e) + " aguardando STORE anterior: " + instrucao(e, e.parametroA);
+            case ROB_CHEIO:
+                return "ROB cheio, não foi possivel emitir a instrucao: " + instrucao(e, e.instrucao);
+            case SEM_ESTACAO:
+                return "Nenhuma estacao de reserva disponivel, não foi possivel emitir a instrucao: " + instrucao(e, e.instrucao);
+            case SEM_REGISTRADOR:
+                return "Nenhum registrador privado livre, não foi possivel emitir a instrucao: " + instrucao(e, e.instrucao);
+            case CANCELAMENTO:
+                return "BEQ executado, instrucao cancelada: " + instrucao(e, e.instrucao);
+            case ESCRITA_FORA_MEMORIA:
+                return "Escrita fora da memoria descartada: endereco " + e.parametroA;
+            case COMMIT:
+                return "Commit: " + instrucao(e, e.instrucao)
+                        + (e.parametroA >= 0 ? " -> " + Simulador.nomeRegistradorPublico(e.parametroA) + " = " + e.valor : "");
+            default:
+                return e.tipo.name();
+        }
+    }
+
+    private static String instrucao(Evento e, int indice) {
+        return indice >= 0 && indice < e.programa.tamanho() ? e.programa.getTexto(indice) : "?";
+    }
+
+    private static String estacao(Evento e) {
+        return e.estacao >= 0 && e.estacao < e.estacoesDeReserva.length ? e.estacoesDeReserva[e.estacao].getNome() : "?";
+    }
+}
@@ -0,0 +1,250 @@
+package simulador;
+
+import java.util.Arrays;
+
+/**
+ * Memoria de dados do simulador, dividida em paginas alocadas sob demanda.
+ * Uma pagina só existe depois da primeira escrita nela; antes disso cada palavra vale
+ * o proprio endereço. As paginas ficam em um diretorio de dois niveis cujos blocos (de
+ * PAGINAS_POR_BLOCO paginas) também só são criados na primeira escrita, então mesmo um
+ * espaço de 2^31-1 palavras custa só o nivel de cima (2048 referencias) até ser usado.
+ * As paginas escritas (sujas) são guardadas em uma lista, e reiniciar() só volta ao
+ * conteudo inicial a faixa escrita de cada uma, sem desalocar: a pagina continua alocada
+ * e a proxima execução escreve nela sem alocar nada.
+ *
+ * Uma copia (capturar()) apenas compartilha as paginas sujas atuais; a primeira escrita
+ * em uma pagina compartilhada copia só aquela pagina (copy-on-write), de modo
+ * que tirar uma copia não custa uma copia de toda a memoria.
+ */
+public class Memoria {
+    static final int BITS_PAGINA = 10;
+    static final int TAMANHO_PAGINA = 1 << BITS_PAGINA; // palavras por pagina
+
+    private static final int BITS_BLOCO = 10;
+    private static final int PAGINAS_POR_BLOCO = 1 << BITS_BLOCO; // paginas por bloco do diretorio
+
+    // Estado de cada pagina
+    private static final byte SEM_PAGINA = 0; // nunca escrita, cada palavra vale o proprio endereço
+    private static final byte LIMPA = 1; // alocada e propria, com o conteudo inicial
+    private static final byte SUJA = 2; // propria e escrita
+    private static final byte COMPARTILHADA = 3; // escrita e também referenciada por alguma copia
+
+    private final int tamanho;
+    private final int numPaginas;
+    // Diretorio: pagina p em blocos[p >>> BITS_BLOCO][p & (PAGINAS_POR_BLOCO - 1)], null até ser escrita;
+    // um bloco é null até a primeira escrita em alguma das suas paginas
+    private final float[][][] blocos;
+    private final byte[][] estados; // estado de cada pagina, com os mesmos indices de blocos
+    private final int[][] inicioEscrito; // faixa [inicio, fim) de cada pagina escrita desde o
+    private final int[][] fimEscrito;    // ultimo reinicio (vazia: inicio = TAMANHO_PAGINA, fim = 0)
+    private int[] sujas = new int[8]; // indices das paginas SUJA ou COMPARTILHADA
+    private int qtdeSujas;
+
+    /**
+     * Copia imutavel do conteudo da memoria (só as paginas sujas, em ordem de indice)
+     */
+    public static final class Copia {
+        private final int tamanho;
+        private final int[] indices;
+        private final float[][] paginas;
+
+        private Copia(int tamanho, int[] indices, float[][] paginas) {
+            this.tamanho = tamanho;
+            this.indices = indices;
+            this.paginas = paginas;
+        }
+
+        public int getTamanho() {
+            return tamanho;
+        }
+
+        public float ler(int endereco) {
+            if (endereco < 0 || endereco >= tamanho) {
+                return 0.0f;
+            }
+            int i = Arrays.binarySearch(indices, endereco >>> BITS_PAGINA);
+            return i >= 0 ? paginas[i][endereco & (TAMANHO_PAGINA - 1)] : endereco;
+        }
+    }
+
+    public Memoria(int tamanho) {
+        this.tamanho = tamanho;
+        numPaginas = (int) (((long) tamanho + TAMANHO_PAGINA - 1) >>> BITS_PAGINA);
+        int numBlocos = (numPaginas + PAGINAS_POR_BLOCO - 1) >>> BITS_BLOCO;
+        blocos = new float[numBlocos][][];
+        estados = new byte[numBlocos][];
+        inicioEscrito = new int[numBlocos][];
+        fimEscrito = new int[numBlocos][];
+    }
+
+    /**
+     * Volta ao conteudo inicial, em que cada palavra vale o proprio endereço.
+     * Só as paginas escritas são tocadas: as proprias são preenchidas de novo e continuam
+     * alocadas, e só as compartilhadas com uma copia são descartadas.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < qtdeSujas; i++) {
+            int p = sujas[i];
+            int b = p >>> BITS_BLOCO;
+            int j = p & (PAGINAS_POR_BLOCO - 1);
+            if (estados[b][j] == COMPARTILHADA) {
+                blocos[b][j] = null;
+                estados[b][j] = SEM_PAGINA;
+            } else {
+                preencher(blocos[b][j], p, inicioEscrito[b][j], fimEscrito[b][j]);
+                estados[b][j] = LIMPA;
+            }
+            inicioEscrito[b][j] = TAMANHO_PAGINA;
+            fimEscrito[b][j] = 0;
+        }
+        qtdeSujas = 0;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Paginas escritas desde o ultimo reinicio
+     */
+    public int getPaginasAlocadas() {
+        return qtdeSujas;
+    }
+
+    /**
+     * Lê uma palavra (enderecos fora da memoria valem 0)
+     */
+    public float ler(int endereco) {
+        if (endereco < 0 || endereco >= tamanho) {
+            return 0.0f;
+        }
+        int p = endereco >>> BITS_PAGINA;
+        float[][] bloco = blocos[p >>> BITS_BLOCO];
+        float[] pagina = bloco != null ? bloco[p & (PAGINAS_POR_BLOCO - 1)] : null;
+        return pagina != null ? pagina[endereco & (TAMANHO_PAGINA - 1)] : endereco;
+    }
+
+    /**
+     * Escreve uma palavra, alocando a pagina na primeira escrita ou copiando antes a pagina
+     * se ela for compartilhada com uma copia
+     * @return false se o endereço está fora da memoria e a escrita foi descartada
+     */
+    public boolean escrever(int endereco, float valor) {
+        if (endereco < 0 || endereco >= tamanho) {
+            return false;
+        }
+        int p = endereco >>> BITS_PAGINA;
+        int b = p >>> BITS_BLOCO;
+        int j = p & (PAGINAS_POR_BLOCO - 1);
+        if (estados[b] == null || estados[b][j] != SUJA) {
+            prepararEscrita(p);
+        }
+        int palavra = endereco & (TAMANHO_PAGINA - 1);
+        blocos[b][j][palavra] = valor;
+        if (palavra < inicioEscrito[b][j]) {
+            inicioEscrito[b][j] = palavra;
+        }
+        if (palavra >= fimEscrito[b][j]) {
+            fimEscrito[b][j] = palavra + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Deixa a pagina propria e na lista de sujas antes da primeira escrita nela: aloca a pagina
+     * nunca escrita, copia a compartilhada com uma copia e só marca a limpa
+     */
+    private void prepararEscrita(int p) {
+        int b = p >>> BITS_BLOCO;
+        int j = p & (PAGINAS_POR_BLOCO - 1);
+        criarBloco(b);
+        float[][] bloco = blocos[b];
+        switch (estados[b][j]) {
+            case SEM_PAGINA:
+                bloco[j] = new float[TAMANHO_PAGINA];
+                preencher(bloco[j], p, 0, TAMANHO_PAGINA);
+                marcarSuja(p);
+                break;
+            case LIMPA:
+                marcarSuja(p);
+                break;
+            case COMPARTILHADA:
+                bloco[j] = bloco[j].clone(); // já está na lista de sujas
+                // O conteudo veio de uma copia: qualquer palavra pode diferir do inicial
+                inicioEscrito[b][j] = 0;
+                fimEscrito[b][j] = TAMANHO_PAGINA;
+                break;
+            default:
+                break;
+        }
+        estados[b][j] = SUJA;
+    }
+
+    /**
+     * Cria o bloco b do diretorio, se ainda não existe (o ultimo pode ter menos paginas)
+     */
+    private void criarBloco(int b) {
+        if (blocos[b] == null) {
+            int paginasNoBloco = Math.min(PAGINAS_POR_BLOCO, numPaginas - (b << BITS_BLOCO));
+            blocos[b] = new float[paginasNoBloco][];
+            estados[b] = new byte[paginasNoBloco];
+            inicioEscrito[b] = new int[paginasNoBloco];
+            Arrays.fill(inicioEscrito[b], TAMANHO_PAGINA);
+            fimEscrito[b] = new int[paginasNoBloco];
+        }
+    }
+
+    /**
+     * Escreve o conteudo inicial (cada palavra vale o proprio endereço) nas palavras
+     * [inicio, fim) da pagina p
+     */
+    private static void preencher(float[] pagina, int p, int inicio, int fim) {
+        int base = p << BITS_PAGINA;
+        for (int i = inicio; i < fim; i++) {
+            pagina[i] = base + i;
+        }
+    }
+
+    private void marcarSuja(int p) {
+        if (qtdeSujas == sujas.length) {
+            sujas = Arrays.copyOf(sujas, sujas.length * 2);
+        }
+        sujas[qtdeSujas++] = p;
+    }
+
+    /**
+     * Tira uma copia do conteudo atual, compartilhando as paginas sujas
+     */
+    public Copia capturar() {
+        int[] indices = Arrays.copyOf(sujas, qtdeSujas);
+        Arrays.sort(indices);
+        float[][] copiadas = new float[indices.length][];
+        for (int i = 0; i < indices.length; i++) {
+            int b = indices[i] >>> BITS_BLOCO;
+            int j = indices[i] & (PAGINAS_POR_BLOCO - 1);
+            copiadas[i] = blocos[b][j];
+            estados[b][j] = COMPARTILHADA;
+        }
+        return new Copia(tamanho, indices, copiadas);
+    }
+
+    /**
+     * Volta ao conteudo de uma copia, que continua valida
+     */
+    public void restaurar(Copia copia) {
+        if (copia.tamanho != tamanho) {
+            throw new IllegalArgumentException("Copia de uma memoria de " + copia.tamanho
+                    + " palavras não serve para uma memoria de " + tamanho);
+        }
+        reiniciar();
+        for (int i = 0; i < copia.indices.length; i++) {
+            int p = copia.indices[i];
+            int b = p >>> BITS_BLOCO;
+            int j = p & (PAGINAS_POR_BLOCO - 1);
+            criarBloco(b);
+            blocos[b][j] = copia.paginas[i];
+            estados[b][j] = COMPARTILHADA;
+            marcarSuja(p);
+        }
+    }
+}
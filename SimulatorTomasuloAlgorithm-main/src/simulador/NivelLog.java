@@ -0,0 +1,25 @@
+package simulador;
+
+/**
+ * Enum que representa o nivel de detalhe do log de execução
+ */
+public enum NivelLog {
+    DESLIGADO("Desligado"),       // nenhum evento é registrado
+    RESUMO("Resumo"),             // apenas carregamento, fim e interrupções da simulação
+    RASTREAMENTO("Rastreamento"); // todos os eventos de cada ciclo
+
+    private final String descricao;
+
+    NivelLog(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
@@ -1,5 +1,7 @@
 package simulador;
 
+import java.util.Arrays;
+
 /**
  * Enum que representa as operações possíveis no simulador Tomasulo
  */
@@ -17,10 +19,83 @@ public enum OpCode {
     DIVI("DIVI");
     
     private final String nome;
-    
+
+    /** Mnemonicos com mais caracteres que isso não existem (a chave tem um byte por caractere) */
+    static final int TAMANHO_MAXIMO_MNEMONICO = 7;
+
+    // Hash perfeito dos mnemonicos: cada chave (ver chave()) cai em uma posição diferente da tabela
+    private static final int BITS_TABELA_HASH = 5;
+    private static final OpCode[] TABELA_HASH = new OpCode[1 << BITS_TABELA_HASH];
+    private static final long[] CHAVES_HASH = new long[1 << BITS_TABELA_HASH];
+    private static final long MULTIPLICADOR_HASH;
+
+    static {
+        // Procura um multiplicador sem colisões entre os mnemonicos (poucas tentativas bastam)
+        long multiplicador = 0x9E3779B97F4A7C15L;
+        while (!preencherTabelaHash(multiplicador)) {
+            multiplicador = (multiplicador * 6364136223846793005L + 1442695040888963407L) | 1;
+        }
+        MULTIPLICADOR_HASH = multiplicador;
+    }
+
     OpCode(String nome) {
         this.nome = nome;
     }
+
+    private static boolean preencherTabelaHash(long multiplicador) {
+        Arrays.fill(TABELA_HASH, null);
+        for (OpCode op : values()) {
+            int posicao = posicaoHash(chave(op.nome), multiplicador);
+            if (TABELA_HASH[posicao] != null) {
+                return false;
+            }
+            TABELA_HASH[posicao] = op;
+            CHAVES_HASH[posicao] = chave(op.nome);
+        }
+        return true;
+    }
+
+    private static int posicaoHash(long chave, long multiplicador) {
+        return (int) ((chave * multiplicador) >>> (64 - BITS_TABELA_HASH));
+    }
+
+    /**
+     * Acrescenta um caractere (ASCII) à chave de um mnemonico, já em maiuscula
+     */
+    static long acrescentarChave(long chave, int caractere) {
+        if (caractere >= 'a' && caractere <= 'z') {
+            caractere -= 'a' - 'A';
+        }
+        return (chave << 8) | (caractere & 0xFF);
+    }
+
+    /**
+     * Chave de um mnemonico: seus caracteres em maiuscula, um por byte.
+     * @return -1 se o texto não pode ser um mnemonico (vazio, longo demais ou não ASCII)
+     */
+    static long chave(CharSequence texto) {
+        if (texto.length() == 0 || texto.length() > TAMANHO_MAXIMO_MNEMONICO) {
+            return -1;
+        }
+        long chave = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c > 127) {
+                return -1;
+            }
+            chave = acrescentarChave(chave, c);
+        }
+        return chave;
+    }
+
+    /**
+     * Busca o OpCode pela chave do mnemonico, em uma unica posição da tabela
+     * @return null se não há operação com essa chave
+     */
+    static OpCode procurar(long chave) {
+        int posicao = posicaoHash(chave, MULTIPLICADOR_HASH);
+        return CHAVES_HASH[posicao] == chave ? TABELA_HASH[posicao] : null;
+    }
     
     public String getNome() {
         return nome;
@@ -30,10 +105,10 @@ public enum OpCode {
      * Converte uma string para o OpCode correspondente
      */
     public static OpCode fromString(String texto) {
-        for (OpCode op : OpCode.values()) {
-            if (op.nome.equalsIgnoreCase(texto)) {
-                return op;
-            }
+        long chave = chave(texto);
+        OpCode op = chave >= 0 ? procurar(chave) : null;
+        if (op != null) {
+            return op;
         }
         throw new IllegalArgumentException("OpCode não reconhecido: " + texto);
     }
@@ -0,0 +1,201 @@
+package simulador;
+
+import java.util.Arrays;
+
+/**
+ * Preditor de direção dos desvios (BEQ), consultado na emissão.
+ * O historico global é atualizado especulativamente a cada previsão e recuperado
+ * quando um desvio é resolvido com previsão errada; os contadores só são treinados
+ * no commit, então o caminho errado nunca os altera.
+ * Endereços são as posições das instruções no programa.
+ */
+public abstract class PreditorDesvios {
+    protected final int mascaraHistorico;
+    protected int historico; // ultimo desvio no bit 0 (1 = tomado)
+
+    protected PreditorDesvios(int bitsHistorico) {
+        this.mascaraHistorico = (1 << bitsHistorico) - 1;
+    }
+
+    /**
+     * Cria o preditor descrito na configuração
+     */
+    public static PreditorDesvios criar(ConfiguracaoSimulador configuracao) {
+        switch (configuracao.getTipoPreditor()) {
+            case TOMADO:
+                return new Estatico(true);
+            case BIMODAL:
+                return new Bimodal(configuracao.getBitsPreditor());
+            case GSHARE:
+                return new Gshare(configuracao.getBitsPreditor(), configuracao.getBitsHistorico());
+            default:
+                return new Estatico(false);
+        }
+    }
+
+    /**
+     * Prevê se o desvio no endereço é tomado, com o historico atual
+     */
+    public abstract boolean prever(int endereco);
+
+    /**
+     * Treina o preditor com o resultado de um desvio commitado
+     * @param historicoPrevisao historico usado quando o desvio foi previsto
+     */
+    public abstract void treinar(int endereco, int historicoPrevisao, boolean tomado);
+
+    public int getHistorico() {
+        return historico;
+    }
+
+    /**
+     * Acrescenta a previsão de um desvio emitido ao historico
+     */
+    public void especular(boolean tomado) {
+        historico = ((historico << 1) | (tomado ? 1 : 0)) & mascaraHistorico;
+    }
+
+    /**
+     * Recupera o historico depois de uma previsão errada: o historico da previsão do desvio
+     * mais o seu resultado real (as previsões dos desvios cancelados são descartadas)
+     */
+    public void recuperar(int historicoPrevisao, boolean tomado) {
+        historico = historicoPrevisao;
+        especular(tomado);
+    }
+
+    /**
+     * Volta ao estado inicial (contadores fracamente não tomados, historico vazio)
+     */
+    public void reiniciar() {
+        historico = 0;
+    }
+
+    /**
+     * Contadores de 2 bits (null para os estaticos), para copias do estado
+     */
+    byte[] getContadores() {
+        return null;
+    }
+
+    void restaurar(byte[] contadores, int historico) {
+        this.historico = historico;
+    }
+
+    /**
+     * Preditor estatico: sempre a mesma previsão
+     */
+    private static final class Estatico extends PreditorDesvios {
+        private final boolean tomado;
+
+        Estatico(boolean tomado) {
+            super(0);
+            this.tomado = tomado;
+        }
+
+        @Override
+        public boolean prever(int endereco) {
+            return tomado;
+        }
+
+        @Override
+        public void treinar(int endereco, int historicoPrevisao, boolean tomado) {
+        }
+    }
+
+    /**
+     * Tabela de contadores saturados de 2 bits (0-1 não tomado, 2-3 tomado)
+     */
+    private static class Bimodal extends PreditorDesvios {
+        protected final byte[] contadores;
+        protected final int mascaraTabela;
+        private final int[] alterados; // entradas treinadas desde o ultimo reinicio (com repetições)
+        private int qtdeAlterados = -1; // -1 se a tabela inteira precisa ser reiniciada
+
+        Bimodal(int bitsTabela) {
+            this(bitsTabela, 0);
+        }
+
+        protected Bimodal(int bitsTabela, int bitsHistorico) {
+            super(bitsHistorico);
+            contadores = new byte[1 << bitsTabela];
+            mascaraTabela = contadores.length - 1;
+            alterados = new int[Math.max(8, contadores.length / 8)];
+            reiniciar();
+        }
+
+        protected int indice(int endereco, int historicoPrevisao) {
+            return endereco & mascaraTabela;
+        }
+
+        @Override
+        public boolean prever(int endereco) {
+            return contadores[indice(endereco, historico)] >= 2;
+        }
+
+        @Override
+        public void treinar(int endereco, int historicoPrevisao, boolean tomado) {
+            int i = indice(endereco, historicoPrevisao);
+            if (tomado && contadores[i] < 3) {
+                contadores[i]++;
+                marcarAlterado(i);
+            } else if (!tomado && contadores[i] > 0) {
+                contadores[i]--;
+                marcarAlterado(i);
+            }
+        }
+
+        /**
+         * Guarda a entrada para o proximo reinicio; se forem muitas, reinicia a tabela inteira
+         */
+        private void marcarAlterado(int i) {
+            if (qtdeAlterados < 0) {
+                return;
+            }
+            if (qtdeAlterados < alterados.length) {
+                alterados[qtdeAlterados++] = i;
+            } else {
+                qtdeAlterados = -1;
+            }
+        }
+
+        @Override
+        public void reiniciar() {
+            super.reiniciar();
+            if (qtdeAlterados < 0) {
+                Arrays.fill(contadores, (byte) 1);
+            } else {
+                for (int k = 0; k < qtdeAlterados; k++) {
+                    contadores[alterados[k]] = 1;
+                }
+            }
+            qtdeAlterados = 0;
+        }
+
+        @Override
+        byte[] getContadores() {
+            return contadores.clone();
+        }
+
+        @Override
+        void restaurar(byte[] contadores, int historico) {
+            super.restaurar(contadores, historico);
+            System.arraycopy(contadores, 0, this.contadores, 0, this.contadores.length);
+            qtdeAlterados = -1;
+        }
+    }
+
+    /**
+     * Contadores de 2 bits indexados pelo endereço XOR o historico global dos ultimos desvios
+     */
+    private static final class Gshare extends Bimodal {
+        Gshare(int bitsTabela, int bitsHistorico) {
+            super(bitsTabela, bitsHistorico);
+        }
+
+        @Override
+        protected int indice(int endereco, int historicoPrevisao) {
+            return (endereco ^ historicoPrevisao) & mascaraTabela;
+        }
+    }
+}
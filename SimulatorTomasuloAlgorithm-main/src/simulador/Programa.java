@@ -0,0 +1,316 @@
+package simulador;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Programa imutavel em forma compacta (struct-of-arrays).
+ * Cada instrução ocupa um long com o opcode e os tres registradores e um int com o imediato;
+ * o texto de todas as instruções fica fora desses vetores, em um unico vetor de bytes ASCII,
+ * e só vira String quando é pedido para exibição (getTexto()).
+ * O estado de execução de cada instrução não fica aqui, e sim no Simulador que executa o programa,
+ * então o mesmo Programa pode ser compartilhado entre simuladores e threads.
+ *
+ * Formato do codigo de cada instrução (do bit menos significativo para o mais):
+ *   bits  0-5   OpCode.ordinal()
+ *   bits  6-24  registrador de destino + 1 (0 se não há)
+ *   bits 25-43  primeiro registrador fonte + 1 (0 se não há)
+ *   bits 44-62  segundo registrador fonte + 1 (0 se não há)
+ */
+public final class Programa {
+    /** Maior indice de registrador que cabe no codigo de uma instrução */
+    public static final int MAIOR_REGISTRADOR = (1 << 19) - 2;
+
+    private static final int BITS_OP = 6;
+    private static final int BITS_REGISTRADOR = 19;
+    private static final int MASCARA_OP = (1 << BITS_OP) - 1;
+    private static final int MASCARA_REGISTRADOR = (1 << BITS_REGISTRADOR) - 1;
+    private static final int DESLOCAMENTO_DESTINO = BITS_OP;
+    private static final int DESLOCAMENTO_FONTE1 = DESLOCAMENTO_DESTINO + BITS_REGISTRADOR;
+    private static final int DESLOCAMENTO_FONTE2 = DESLOCAMENTO_FONTE1 + BITS_REGISTRADOR;
+    private static final OpCode[] OPCODES = OpCode.values();
+
+    /** Programa sem instruções */
+    public static final Programa VAZIO = new Construtor().construir();
+
+    private final int tamanho;
+    private final long[] codigos;
+    private final int[] imediatos;
+    private final byte[] textos;       // texto de todas as instruções, em sequencia
+    private final int[] inicioTextos;  // inicio do texto de cada instrução (tamanho + 1 posições)
+    private final int maiorRegistrador; // maior indice de registrador usado (-1 se nenhum)
+
+    private Programa(Construtor construtor) {
+        this.tamanho = construtor.tamanho;
+        this.codigos = Arrays.copyOf(construtor.codigos, tamanho);
+        this.imediatos = Arrays.copyOf(construtor.imediatos, tamanho);
+        this.textos = Arrays.copyOf(construtor.textos, construtor.inicioTextos[tamanho]);
+        this.inicioTextos = Arrays.copyOf(construtor.inicioTextos, tamanho + 1);
+        this.maiorRegistrador = construtor.maiorRegistrador;
+    }
+
+    private Programa(long[] codigos, int[] imediatos, byte[] textos, int[] inicioTextos, int maiorRegistrador) {
+        this.tamanho = codigos.length;
+        this.codigos = codigos;
+        this.imediatos = imediatos;
+        this.textos = textos;
+        this.inicioTextos = inicioTextos;
+        this.maiorRegistrador = maiorRegistrador;
+    }
+
+    /**
+     * Programa formado direto pelos vetores (ex: lidos de um arquivo compilado), sem copia.
+     * Os vetores são conferidos, mas passam a pertencer ao programa e não podem mais ser alterados.
+     * @throws IllegalArgumentException se os vetores não formam um programa valido
+     */
+    static Programa deVetores(long[] codigos, int[] imediatos, byte[] textos, int[] inicioTextos) {
+        int tamanho = codigos.length;
+        if (imediatos.length != tamanho || inicioTextos.length != tamanho + 1
+                || inicioTextos[0] != 0 || inicioTextos[tamanho] != textos.length) {
+            throw new IllegalArgumentException("Vetores do programa com tamanhos inconsistentes");
+        }
+        int maiorRegistrador = -1;
+        for (int i = 0; i < tamanho; i++) {
+            long codigo = codigos[i];
+            if (((int) codigo & MASCARA_OP) >= OPCODES.length || codigo >>> (DESLOCAMENTO_FONTE2 + BITS_REGISTRADOR) != 0
+                    || inicioTextos[i + 1] < inicioTextos[i]) {
+                throw new IllegalArgumentException("Instrução " + i + " inválida");
+            }
+            maiorRegistrador = Math.max(maiorRegistrador, Math.max(registrador(codigo, DESLOCAMENTO_DESTINO),
+                    Math.max(registrador(codigo, DESLOCAMENTO_FONTE1), registrador(codigo, DESLOCAMENTO_FONTE2))));
+        }
+        return new Programa(codigos, imediatos, textos, inicioTextos, maiorRegistrador);
+    }
+
+    /**
+     * Converte uma lista de instruções (ex: programas gerados) para a forma compacta
+     */
+    public static Programa de(List<Instrucao> instrucoes) {
+        Construtor construtor = new Construtor(instrucoes.size());
+        for (Instrucao instrucao : instrucoes) {
+            construtor.adicionar(instrucao);
+        }
+        return construtor.construir();
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public OpCode getOp(int indice) {
+        return OPCODES[(int) codigos[indice] & MASCARA_OP];
+    }
+
+    /** Indice do registrador de destino (-1 se não há) */
+    public int getDestino(int indice) {
+        return registrador(codigos[indice], DESLOCAMENTO_DESTINO);
+    }
+
+    /** Indice do primeiro registrador fonte (-1 se não há) */
+    public int getFonte1(int indice) {
+        return registrador(codigos[indice], DESLOCAMENTO_FONTE1);
+    }
+
+    /** Indice do segundo registrador fonte (-1 se não há) */
+    public int getFonte2(int indice) {
+        return registrador(codigos[indice], DESLOCAMENTO_FONTE2);
+    }
+
+    public int getImediato(int indice) {
+        return imediatos[indice];
+    }
+
+    /**
+     * Verifica se a instrução escreve em um registrador (mesma regra de Instrucao.podeEscrever())
+     */
+    public boolean podeEscrever(int indice) {
+        OpCode op = getOp(indice);
+        return getDestino(indice) >= 0 && !op.isBranch() && op != OpCode.STORE;
+    }
+
+    /**
+     * Texto da instrução, criado a cada chamada (uso em exibição e no log)
+     */
+    public String getTexto(int indice) {
+        int inicio = inicioTextos[indice];
+        // O texto só tem caracteres ASCII, então cada byte é um caractere
+        return new String(textos, inicio, inicioTextos[indice + 1] - inicio, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Maior indice de registrador usado pelo programa (-1 se nenhum)
+     */
+    public int getMaiorRegistrador() {
+        return maiorRegistrador;
+    }
+
+    /**
+     * Cria uma Instrucao com os dados da instrução indicada
+     */
+    public Instrucao getInstrucao(int indice) {
+        int destino = getDestino(indice);
+        int fonte1 = getFonte1(indice);
+        int fonte2 = getFonte2(indice);
+        return new Instrucao(getOp(indice), nome(destino), nome(fonte1), nome(fonte2), getImediato(indice),
+                getTexto(indice), destino, fonte1, fonte2);
+    }
+
+    /**
+     * Lista somente leitura com as instruções do programa, criadas quando pedidas
+     */
+    public List<Instrucao> comoLista() {
+        return new Lista();
+    }
+
+    // Vetores internos, sem copia (usados por ProgramaBinario para gravar o programa)
+
+    long[] codigos() {
+        return codigos;
+    }
+
+    int[] imediatos() {
+        return imediatos;
+    }
+
+    byte[] textos() {
+        return textos;
+    }
+
+    int[] inicioTextos() {
+        return inicioTextos;
+    }
+
+    private static int registrador(long codigo, int deslocamento) {
+        return ((int) (codigo >>> deslocamento) & MASCARA_REGISTRADOR) - 1;
+    }
+
+    private static String nome(int registrador) {
+        return registrador >= 0 ? Simulador.nomeRegistradorPublico(registrador) : null;
+    }
+
+    private final class Lista extends AbstractList<Instrucao> implements RandomAccess {
+        @Override
+        public Instrucao get(int indice) {
+            if (indice < 0 || indice >= tamanho) {
+                throw new IndexOutOfBoundsException("Instrução " + indice + " de " + tamanho);
+            }
+            return getInstrucao(indice);
+        }
+
+        @Override
+        public int size() {
+            return tamanho;
+        }
+    }
+
+    /**
+     * Monta um Programa instrução por instrução (usado pelo parser)
+     */
+    public static final class Construtor {
+        private int tamanho;
+        private long[] codigos;
+        private int[] imediatos;
+        private byte[] textos;
+        private int[] inicioTextos;
+        private int maiorRegistrador = -1;
+
+        public Construtor() {
+            this(16);
+        }
+
+        public Construtor(int capacidade) {
+            capacidade = Math.max(capacidade, 1);
+            codigos = new long[capacidade];
+            imediatos = new int[capacidade];
+            textos = new byte[capacidade * 16];
+            inicioTextos = new int[capacidade + 1];
+        }
+
+        public int tamanho() {
+            return tamanho;
+        }
+
+        /**
+         * Acrescenta uma instrução cujo texto (ASCII) está em texto[inicioTexto, inicioTexto + tamanhoTexto).
+         * Os registradores são indices, ou -1 se não há.
+         * @throws IllegalArgumentException se um registrador passa de MAIOR_REGISTRADOR
+         */
+        public void adicionar(OpCode op, int destino, int fonte1, int fonte2, int imediato,
+                              byte[] texto, int inicioTexto, int tamanhoTexto) {
+            if (tamanho == codigos.length) {
+                int capacidade = codigos.length * 2;
+                codigos = Arrays.copyOf(codigos, capacidade);
+                imediatos = Arrays.copyOf(imediatos, capacidade);
+                inicioTextos = Arrays.copyOf(inicioTextos, capacidade + 1);
+            }
+            codigos[tamanho] = op.ordinal()
+                    | campo(destino) << DESLOCAMENTO_DESTINO
+                    | campo(fonte1) << DESLOCAMENTO_FONTE1
+                    | campo(fonte2) << DESLOCAMENTO_FONTE2;
+            imediatos[tamanho] = imediato;
+            maiorRegistrador = Math.max(maiorRegistrador, Math.max(destino, Math.max(fonte1, fonte2)));
+
+            int inicio = inicioTextos[tamanho];
+            garantirTextos(inicio + tamanhoTexto);
+            System.arraycopy(texto, inicioTexto, textos, inicio, tamanhoTexto);
+            tamanho++;
+            inicioTextos[tamanho] = inicio + tamanhoTexto;
+        }
+
+        /**
+         * Acrescenta uma instrução já criada (o texto é o de toString())
+         */
+        public void adicionar(Instrucao instrucao) {
+            byte[] texto = instrucao.toString().getBytes(StandardCharsets.ISO_8859_1);
+            adicionar(instrucao.getOp(), instrucao.getIndiceRd(), instrucao.getIndiceReg1(), instrucao.getIndiceReg2(),
+                    instrucao.getImediato(), texto, 0, texto.length);
+        }
+
+        /**
+         * Acrescenta todas as instruções de outro programa (ex: trechos de um arquivo lidos em paralelo)
+         */
+        public void adicionar(Programa programa) {
+            int capacidade = tamanho + programa.tamanho;
+            if (capacidade > codigos.length) {
+                codigos = Arrays.copyOf(codigos, capacidade);
+                imediatos = Arrays.copyOf(imediatos, capacidade);
+                inicioTextos = Arrays.copyOf(inicioTextos, capacidade + 1);
+            }
+            System.arraycopy(programa.codigos, 0, codigos, tamanho, programa.tamanho);
+            System.arraycopy(programa.imediatos, 0, imediatos, tamanho, programa.tamanho);
+            int inicio = inicioTextos[tamanho];
+            garantirTextos(inicio + programa.textos.length);
+            System.arraycopy(programa.textos, 0, textos, inicio, programa.textos.length);
+            for (int i = 1; i <= programa.tamanho; i++) {
+                inicioTextos[tamanho + i] = inicio + programa.inicioTextos[i];
+            }
+            tamanho = capacidade;
+            maiorRegistrador = Math.max(maiorRegistrador, programa.maiorRegistrador);
+        }
+
+        public Programa construir() {
+            return new Programa(this);
+        }
+
+        private void garantirTextos(int necessario) {
+            if (necessario < 0) {
+                throw new IllegalStateException("Texto do programa passa de 2 GB");
+            }
+            if (necessario > textos.length) {
+                textos = Arrays.copyOf(textos, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max((long) textos.length * 2, necessario)));
+            }
+        }
+
+        private static long campo(int registrador) {
+            if (registrador > MAIOR_REGISTRADOR) {
+                throw new IllegalArgumentException("Registrador fora do limite R0-R" + MAIOR_REGISTRADOR
+                        + ": " + Simulador.nomeRegistradorPublico(registrador));
+            }
+            return registrador + 1L;
+        }
+    }
+}
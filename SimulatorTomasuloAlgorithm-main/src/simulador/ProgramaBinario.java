@@ -0,0 +1,256 @@
+package simulador;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formato binario (versionado) dos programas já decodificados, para carregar sem parsear o texto.
+ * O arquivo é mapeado em memoria e os vetores do Programa são copiados em bloco direto dele.
+ *
+ * Layout (little-endian):
+ *   0   4 bytes   MAGICO (0x89 'T' 'O' 'M')
+ *   4   int       VERSAO
+ *   8   int       quantidade de instruções (n)
+ *   12  int       tamanho do texto das instruções, em bytes (t)
+ *   16  32 bytes  SHA-256 do arquivo texto de origem (zeros se não há)
+ *   48  long[n]   codigos (ver Programa)
+ *       int[n]    imediatos
+ *       int[n+1]  inicio do texto de cada instrução
+ *       byte[t]   texto das instruções
+ */
+public final class ProgramaBinario {
+    /** Extensão usada para os programas compilados */
+    public static final String EXTENSAO = ".tomb";
+    /** Muda sempre que o layout ou o significado dos codigos mudar (arquivos antigos são recusados) */
+    public static final int VERSAO = 1;
+
+    private static final byte[] MAGICO = {(byte) 0x89, 'T', 'O', 'M'};
+    private static final int TAMANHO_HASH = 32;
+    private static final int TAMANHO_CABECALHO = 48;
+    private static final int TAMANHO_BLOCO_ESCRITA = 1 << 16;
+
+    private ProgramaBinario() {
+    }
+
+    /**
+     * Verifica se o arquivo começa com o numero magico de um programa compilado
+     */
+    public static boolean isCompilado(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return isCompilado(canal);
+        }
+    }
+
+    static boolean isCompilado(FileChannel canal) throws IOException {
+        ByteBuffer inicio = ByteBuffer.allocate(MAGICO.length);
+        while (inicio.hasRemaining() && canal.read(inicio, inicio.position()) > 0) {
+        }
+        return !inicio.hasRemaining() && Arrays.equals(inicio.array(), MAGICO);
+    }
+
+    /**
+     * Grava o programa compilado, sem hash de origem
+     */
+    public static void gravar(Programa programa, Path destino) throws IOException {
+        gravar(programa, new byte[TAMANHO_HASH], destino);
+    }
+
+    /**
+     * Grava o programa compilado. O arquivo é escrito ao lado do destino e depois renomeado,
+     * então leitores (ex: outras execuções usando o mesmo cache) nunca veem um arquivo pela metade.
+     * @param hashFonte SHA-256 do texto de onde o programa foi lido
+     */
+    public static void gravar(Programa programa, byte[] hashFonte, Path destino) throws IOException {
+        if (hashFonte.length != TAMANHO_HASH) {
+            throw new IllegalArgumentException("Hash de origem deve ter " + TAMANHO_HASH + " bytes");
+        }
+        // Nome unico por processo e thread, para que gravações simultaneas do mesmo cache não se misturem
+        Path temporario = destino.resolveSibling(destino.getFileName() + "." + ProcessHandle.current().pid()
+                + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                escrever(programa, hashFonte, canal);
+            }
+            try {
+                Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private static void escrever(Programa programa, byte[] hashFonte, FileChannel canal) throws IOException {
+        long[] codigos = programa.codigos();
+        int[] imediatos = programa.imediatos();
+        int[] inicioTextos = programa.inicioTextos();
+        byte[] textos = programa.textos();
+
+        ByteBuffer bloco = ByteBuffer.allocateDirect(TAMANHO_BLOCO_ESCRITA).order(ByteOrder.LITTLE_ENDIAN);
+        bloco.put(MAGICO).putInt(VERSAO).putInt(codigos.length).putInt(textos.length).put(hashFonte);
+        for (long codigo : codigos) {
+            if (bloco.remaining() < Long.BYTES) {
+                esvaziar(bloco, canal);
+            }
+            bloco.putLong(codigo);
+        }
+        for (int imediato : imediatos) {
+            if (bloco.remaining() < Integer.BYTES) {
+                esvaziar(bloco, canal);
+            }
+            bloco.putInt(imediato);
+        }
+        for (int inicio : inicioTextos) {
+            if (bloco.remaining() < Integer.BYTES) {
+                esvaziar(bloco, canal);
+            }
+            bloco.putInt(inicio);
+        }
+        for (int i = 0; i < textos.length; ) {
+            if (!bloco.hasRemaining()) {
+                esvaziar(bloco, canal);
+            }
+            int n = Math.min(bloco.remaining(), textos.length - i);
+            bloco.put(textos, i, n);
+            i += n;
+        }
+        esvaziar(bloco, canal);
+    }
+
+    private static void esvaziar(ByteBuffer bloco, FileChannel canal) throws IOException {
+        bloco.flip();
+        while (bloco.hasRemaining()) {
+            canal.write(bloco);
+        }
+        bloco.clear();
+    }
+
+    /**
+     * Lê um programa compilado
+     * @throws IOException se o arquivo não pode ser lido ou não é um programa compilado desta versão
+     */
+    public static Programa ler(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return ler(canal, arquivo, null);
+        }
+    }
+
+    /**
+     * Lê um programa do cache, conferindo que ele foi compilado do texto com o hash indicado
+     * @return o programa, ou null se o arquivo não existe ou não é valido (ex: versão antiga)
+     */
+    static Programa lerDoCache(Path arquivo, byte[] hashFonte) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return ler(canal, arquivo, hashFonte);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static Programa ler(FileChannel canal, Path arquivo, byte[] hashEsperado) throws IOException {
+        long tamanhoArquivo = canal.size();
+        if (tamanhoArquivo < TAMANHO_CABECALHO || tamanhoArquivo > Integer.MAX_VALUE) {
+            throw invalido(arquivo, "tamanho " + tamanhoArquivo);
+        }
+        MappedByteBuffer mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanhoArquivo);
+        ByteBuffer conteudo = mapeado.order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] magico = new byte[MAGICO.length];
+        conteudo.get(magico);
+        if (!Arrays.equals(magico, MAGICO)) {
+            throw invalido(arquivo, "não é um programa compilado");
+        }
+        int versao = conteudo.getInt();
+        if (versao != VERSAO) {
+            throw invalido(arquivo, "versão " + versao + ", esperada " + VERSAO);
+        }
+        int tamanho = conteudo.getInt();
+        int tamanhoTextos = conteudo.getInt();
+        byte[] hashFonte = new byte[TAMANHO_HASH];
+        conteudo.get(hashFonte);
+        if (hashEsperado != null && !Arrays.equals(hashFonte, hashEsperado)) {
+            throw invalido(arquivo, "compilado de outro texto");
+        }
+        long esperado = TAMANHO_CABECALHO + (long) tamanho * (Long.BYTES + 2 * Integer.BYTES) + Integer.BYTES + tamanhoTextos;
+        if (tamanho < 0 || tamanhoTextos < 0 || esperado != tamanhoArquivo) {
+            throw invalido(arquivo, "tamanho " + tamanhoArquivo + ", esperado " + esperado);
+        }
+
+        // Copias em bloco das seções (o cabeçalho deixa os codigos alinhados em 8 bytes)
+        long[] codigos = new long[tamanho];
+        int[] imediatos = new int[tamanho];
+        int[] inicioTextos = new int[tamanho + 1];
+        byte[] textos = new byte[tamanhoTextos];
+        int posicao = TAMANHO_CABECALHO;
+        conteudo.position(posicao);
+        conteudo.asLongBuffer().get(codigos);
+        posicao += tamanho * Long.BYTES;
+        conteudo.position(posicao);
+        conteudo.asIntBuffer().get(imediatos);
+        posicao += tamanho * Integer.BYTES;
+        conteudo.position(posicao);
+        conteudo.asIntBuffer().get(inicioTextos);
+        posicao += (tamanho + 1) * Integer.BYTES;
+        conteudo.position(posicao);
+        conteudo.get(textos);
+        try {
+            return Programa.deVetores(codigos, imediatos, textos, inicioTextos);
+        } catch (IllegalArgumentException e) {
+            throw invalido(arquivo, e.getMessage());
+        }
+    }
+
+    private static IOException invalido(Path arquivo, String motivo) {
+        return new IOException("Programa compilado inválido (" + motivo + "): " + arquivo);
+    }
+
+    /**
+     * Compila programas texto para o formato binario (por padrão ao lado de cada arquivo, com a extensão .tomb)
+     */
+    public static void main(String[] args) {
+        String saida = null;
+        List<String> arquivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                saida = args[++i];
+            } else {
+                arquivos.add(args[i]);
+            }
+        }
+        if (arquivos.isEmpty() || (saida != null && arquivos.size() > 1)) {
+            System.err.println("Uso: java -cp bin simulador.ProgramaBinario [-o saida.tomb] arquivo1.txt [arquivo2.txt ...]");
+            System.exit(2);
+        }
+
+        boolean falhou = false;
+        for (String arquivo : arquivos) {
+            Path destino = Paths.get(saida != null ? saida : arquivo.replaceFirst("\\.txt$", "") + EXTENSAO);
+            try {
+                byte[] hash = InstructionParser.hashArquivo(Paths.get(arquivo));
+                Programa programa = InstructionParser.lerPrograma(arquivo);
+                gravar(programa, hash, destino);
+                System.out.println(arquivo + " -> " + destino + " (" + programa.tamanho() + " instruções)");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erro ao compilar " + arquivo + ": " + e.getMessage());
+                falhou = true;
+            }
+        }
+        if (falhou) {
+            System.exit(1);
+        }
+    }
+}
@@ -5,31 +5,41 @@ package simulador;
  */
 public class ReorderBufferSlot {
     private boolean busy;
-    private Instrucao instrucao;
+    private int indiceInstrucao;         // Posição da instrução no programa (-1 se não há)
     private EstadoInstrucao estado;
-    private String registradorPublico;  // Registrador arquitetural a ser atualizado (ex: "R5")
-    private String registradorRenomeado;        // Registrador fisico alocado para o resultado (ex: "P14")
-    private Float resultado;             // Valor do resultado
+    private int registradorPublico;      // Indice do registrador arquitetural a ser atualizado (ex: 5 para R5, -1 se não há)
+    private int registradorRenomeado;    // Indice do registrador fisico alocado para o resultado (ex: 14 para P14)
+    private int mapeamentoAnterior;      // Mapeamento de registradorPublico antes da renomeação (para recuperação)
+    private float resultado;             // Valor do resultado
     private boolean pronto;              // true quando o campo resultado for válido
     private int indice;                  // indice do slot no ROB
     private int cicloIssue;             // Ciclo em que a instrução foi emitida
     private int cicloExecucao;          // Ciclo em que a instrução começou a executar
     private int cicloEscrita;           // Ciclo em que o resultado foi escrito
     private int cicloCommit;            // Ciclo em que a instrução foi commitada
+    private int proximoPrevisto;         // Desvios: instrução emitida depois dele (caminho previsto)
+    private int historicoPrevisao;       // Desvios: historico global usado na previsão
+    private boolean previsaoErrada;      // Desvios: resolvido com o caminho diferente do previsto
+    private int endereco;                // LOAD/STORE: endereço acessado (o STORE escreve nele no commit)
     
     public ReorderBufferSlot(int indice) {
         this.indice = indice;
         this.busy = false;
-        this.instrucao = null;
+        this.indiceInstrucao = -1;
         this.estado = EstadoInstrucao.PROCESSANDO;
-        this.registradorPublico = null;
-        this.registradorRenomeado = null;
-        this.resultado = null;
+        this.registradorPublico = -1;
+        this.registradorRenomeado = -1;
+        this.mapeamentoAnterior = -1;
+        this.resultado = 0.0f;
         this.pronto = false;
         this.cicloIssue = -1;
         this.cicloExecucao = -1;
         this.cicloEscrita = -1;
         this.cicloCommit = -1;
+        this.proximoPrevisto = -1;
+        this.historicoPrevisao = 0;
+        this.previsaoErrada = false;
+        this.endereco = 0;
     }
     
     /**
@@ -37,16 +47,21 @@ public class ReorderBufferSlot {
      */
     public void limpar() {
         this.busy = false;
-        this.instrucao = null;
+        this.indiceInstrucao = -1;
         this.estado = EstadoInstrucao.PROCESSANDO;
-        this.registradorPublico = null;
-        this.registradorRenomeado = null;
-        this.resultado = null;
+        this.registradorPublico = -1;
+        this.registradorRenomeado = -1;
+        this.mapeamentoAnterior = -1;
+        this.resultado = 0.0f;
         this.pronto = false;
         this.cicloIssue = -1;
         this.cicloExecucao = -1;
         this.cicloEscrita = -1;
         this.cicloCommit = -1;
+        this.proximoPrevisto = -1;
+        this.historicoPrevisao = 0;
+        this.previsaoErrada = false;
+        this.endereco = 0;
     }
     
     /**
@@ -59,7 +74,7 @@ public class ReorderBufferSlot {
     /**
      * Marca o resultado como pronto
      */
-    public void marcarResultadoPronto(Float valor, int ciclo) {
+    public void marcarResultadoPronto(float valor, int ciclo) {
         setResultado(valor);
         this.pronto = true;
         this.estado = EstadoInstrucao.CONCLUIDA;
@@ -76,12 +91,12 @@ public class ReorderBufferSlot {
         this.busy = busy;
     }
     
-    public Instrucao getInstrucao() {
-        return instrucao;
+    public int getIndiceInstrucao() {
+        return indiceInstrucao;
     }
-    
-    public void setInstrucao(Instrucao instrucao) {
-        this.instrucao = instrucao;
+
+    public void setIndiceInstrucao(int indiceInstrucao) {
+        this.indiceInstrucao = indiceInstrucao;
     }
     
     public EstadoInstrucao getEstado() {
@@ -92,27 +107,35 @@ public class ReorderBufferSlot {
         this.estado = estado;
     }
     
-    public String getRegistradorPublico() {
+    public int getRegistradorPublico() {
         return registradorPublico;
     }
     
-    public void setRegistradorPublico(String registradorPublico) {
+    public void setRegistradorPublico(int registradorPublico) {
         this.registradorPublico = registradorPublico;
     }
     
-    public String getRegistradorRenomeado() {
+    public int getRegistradorRenomeado() {
         return registradorRenomeado;
     }
     
-    public void setRegistradorRenomeado(String registradorRenomeado) {
+    public void setRegistradorRenomeado(int registradorRenomeado) {
         this.registradorRenomeado = registradorRenomeado;
     }
+
+    public int getMapeamentoAnterior() {
+        return mapeamentoAnterior;
+    }
+
+    public void setMapeamentoAnterior(int mapeamentoAnterior) {
+        this.mapeamentoAnterior = mapeamentoAnterior;
+    }
     
-    public Float getResultado() {
+    public float getResultado() {
         return resultado;
     }
     
-    public void setResultado(Float resultado) {
+    public void setResultado(float resultado) {
         this.resultado = resultado;
     }
     
@@ -163,4 +186,36 @@ public class ReorderBufferSlot {
     public void setCicloCommit(int cicloCommit) {
         this.cicloCommit = cicloCommit;
     }
+
+    public int getProximoPrevisto() {
+        return proximoPrevisto;
+    }
+
+    public void setProximoPrevisto(int proximoPrevisto) {
+        this.proximoPrevisto = proximoPrevisto;
+    }
+
+    public int getHistoricoPrevisao() {
+        return historicoPrevisao;
+    }
+
+    public void setHistoricoPrevisao(int historicoPrevisao) {
+        this.historicoPrevisao = historicoPrevisao;
+    }
+
+    public boolean isPrevisaoErrada() {
+        return previsaoErrada;
+    }
+
+    public void setPrevisaoErrada(boolean previsaoErrada) {
+        this.previsaoErrada = previsaoErrada;
+    }
+
+    public int getEndereco() {
+        return endereco;
+    }
+
+    public void setEndereco(int endereco) {
+        this.endereco = endereco;
+    }
 }
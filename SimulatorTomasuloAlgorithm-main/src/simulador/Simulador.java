@@ -2,30 +2,26 @@ package simulador;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 
 public class Simulador {
-    private static final int LIMITE_CICLOS = 100; // limite de ciclos para detectar loop
-    private static final int LIMITE_INSTRUCAO = 50; // limite de ciclos para uma instrucao
+    private static final int LATENCIA_ENCAMINHAMENTO = 1; // LOAD que recebe o valor de um STORE ainda no ROB
 
     // Configuracoes do simulador
-    private static final int TAMANHO_ROB = 8;
-    private static final int NUM_ESTACOES_ADD = 3;
-    private static final int NUM_ESTACOES_MUL = 3;
-    private static final int NUM_ESTACOES_LOAD = 3;
-    private static final int NUM_ESTACOES_BRANCHES = 3;
-    private static final int NUM_REGISTRADORES_PRIVADOS = 32;
-    private static final int NUM_REGISTRADORES_PUBLICOS = 16;
+    private final ConfiguracaoSimulador configuracao;
 
     // Estruturas de dados principais
-    private Map<String, Float> bancoRegistradores; // R1 -> valor
-    private Map<String, Float> bancoPrivado; // P1 -> valor
-    private Map<String, String> mapaRenomeacao; // R1 -> P5
-    private Queue<String> filaRegistradoresLivres; // Registradores privados livres
+    private float[] bancoRegistradores; // R1 -> valor
+    private float[] bancoPrivado; // P1 -> valor
+    private int[] mapaRenomeacao; // R1 -> P5 (-1 se não há mapeamento)
+    private ReorderBufferSlot[] produtorPrivado; // P5 -> slot do ROB que produz o valor
+    private int[] filaRegistradoresLivres; // Registradores privados livres (fila circular)
+    private int inicioFilaLivres; // Posicao do proximo registrador livre na fila
+    private int qtdeRegistradoresLivres; // Quantidade de registradores na fila
 
     private List<ReorderBufferSlot> rob; // Buffer de Reordenamento
     private int robHead; // Cabeça do ROB (proximo a fazer commit)
@@ -35,26 +31,54 @@ public class Simulador {
     private List<EstacaoDeReserva> estacoesMul; // Estacoes para MUL/DIV
     private List<EstacaoDeReserva> estacoesLoad; // Estacoes para LOAD/STORE
     private List<EstacaoDeReserva> estacoesBranches; // Estacoes para branches
+    private EstacaoDeReserva[] estacoes; // Todas as estacoes, indexadas por EstacaoDeReserva.getIndice()
+    private ListasDeEspera listasDeEspera; // Operandos aguardando cada registrador privado
+    private EstacaoDeReserva[] estacaoDoSlot; // Slot do ROB -> estacao que recebeu a instrucao
+    private UnidadeFuncional[][] unidades; // Unidades funcionais, indexadas por TipoUnidadeFuncional.ordinal()
 
-    private Map<Integer, Float> memoria;
+    private Memoria memoria;
+    private CacheDados cacheL1; // null sem caches (latencia fixa de LOAD/STORE)
+    private CacheDados cacheL2; // null sem L2
+    private PreditorDesvios preditor; // Direção prevista dos desvios na emissão
+    private BufferAlvosDesvios btb; // Alvos dos desvios tomados
 
     // Estado do simulador
-    private List<Instrucao> instrucoes;
+    private Programa programa;
+    private int[] estadoInstrucoes; // 0: nenhuma, 1: emitida, 2: executada, 3: resultado escrito, 4: commitada
+    private int[] execucoesInstrucoes; // vezes que cada instrucao foi emitida de novo
     private int pc; // Program Counter
     private int cicloAtual;
     private int totalCiclos;
     private int ciclosBolha;
     private boolean simulacaoCompleta;
+    private boolean simulacaoInterrompida; // pelo watchdog ou pelo limite de ciclos, sem terminar o programa
+    private int cicloUltimoCommit; // para o watchdog: ciclo do ultimo commit (ou do inicio)
 
     // Estatisticas
     private int instrucoesExecutadas;
-    private List<String> logExecucao;
+    private int desviosCommitados;
+    private int desviosPrevistosErrado;
+    private int ciclosPenalidadeDesvio; // ciclos entre a emissão e a resolução dos desvios previstos errado
+    private int cargasEncaminhadas; // LOADs que receberam o valor de um STORE anterior sem acessar a memoria
+    private int ciclosEsperaMemoria; // ciclos de LOADs prontos aguardando um STORE anterior (ordem de memoria)
+    private LogEventos log; // Eventos da execução
+    private boolean avancoRapido = true; // executarCompleto() salta os ciclos em que nada acontece
+    private int bolhasPorCicloOcioso; // Calculado por contarCiclosOciosos()
+    private int esperasMemoriaPorCicloOcioso; // Idem, LOADs aguardando um STORE anterior
 
     /**
      * Construtor do simulador
      */
     public Simulador() {
+        this(ConfiguracaoSimulador.padrao());
+    }
+
+    /**
+     * Construtor do simulador para uma microarquitetura especifica
+     */
+    public Simulador(ConfiguracaoSimulador configuracao) {
 //passo 3
+        this.configuracao = configuracao;
         inicializarSimulador();
     }
 
@@ -66,28 +90,32 @@ public class Simulador {
     private void inicializarSimulador() {
 //passo 4
         // Inicializando Banco de Registradores
-        bancoRegistradores = new HashMap<>();
+        bancoRegistradores = new float[configuracao.getNumRegistradoresPublicos()];
 // passo 5
-        for (int i = 0; i <= NUM_REGISTRADORES_PUBLICOS; i++) {
-            bancoRegistradores.put("R" + i, (float) i);
+        for (int i = 0; i < configuracao.getNumRegistradoresPublicos(); i++) {
+            bancoRegistradores[i] = i;
         }
 //passo 6
         // Inicializando Banco de Registradores privados
-        bancoPrivado = new HashMap<>();
+        bancoPrivado = new float[configuracao.getNumRegistradoresPrivados()];
+        produtorPrivado = new ReorderBufferSlot[configuracao.getNumRegistradoresPrivados()];
 //passo 7
-        filaRegistradoresLivres = new LinkedList<>();
+        filaRegistradoresLivres = new int[configuracao.getNumRegistradoresPrivados()];
+        inicioFilaLivres = 0;
+        qtdeRegistradoresLivres = 0;
 //passo 8
-        for (int i = 0; i <= NUM_REGISTRADORES_PRIVADOS; i++) {
-            bancoPrivado.put("P" + i, (float) i);
-            filaRegistradoresLivres.offer("P" + i);
+        for (int i = 0; i < configuracao.getNumRegistradoresPrivados(); i++) {
+            bancoPrivado[i] = i;
+            liberarRegistradorPrivado(i);
         }
 //passo 9
-        mapaRenomeacao = new HashMap<>();
+        mapaRenomeacao = new int[configuracao.getNumRegistradoresPublicos()];
+        Arrays.fill(mapaRenomeacao, -1);
 //passo 10
         // Inicializando Buffer de Reordenamento
         rob = new ArrayList<>();
 //passo 11
-        for (int i = 0; i < TAMANHO_ROB; i++) {
+        for (int i = 0; i < configuracao.getTamanhoROB(); i++) {
             rob.add(new ReorderBufferSlot(i));
         }
 //passo 12
@@ -97,99 +125,116 @@ public class Simulador {
         // Inicializando Estacoes de Reserva
         estacoesAdd = new ArrayList<>();
 //passo 13
-        for (int i = 0; i < NUM_ESTACOES_ADD; i++) {
+        for (int i = 0; i < configuracao.getNumEstacoesAdd(); i++) {
             estacoesAdd.add(new EstacaoDeReserva("Add" + (i + 1)));
         }
 //passo 14
         estacoesMul = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_MUL; i++) {
+        for (int i = 0; i < configuracao.getNumEstacoesMul(); i++) {
             estacoesMul.add(new EstacaoDeReserva("Mult" + (i + 1)));
         }
 //passo 15
         estacoesLoad = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_LOAD; i++) {
+        for (int i = 0; i < configuracao.getNumEstacoesLoad(); i++) {
             estacoesLoad.add(new EstacaoDeReserva("Load" + (i + 1)));
         }
 //passo 16
         estacoesBranches = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_BRANCHES; i++) {
+        for (int i = 0; i < configuracao.getNumEstacoesBranches(); i++) {
             estacoesBranches.add(new EstacaoDeReserva("Branch" + (i + 1)));
         }
+        unificarEstacoes();
+        estacaoDoSlot = new EstacaoDeReserva[configuracao.getTamanhoROB()];
+        criarUnidadesFuncionais();
 //passo 17
-        // Iniciando memoria
-        memoria = new HashMap<>();
-        for (int i = 0; i < 1024; i++) {
-            memoria.put(i, (float) i); // Inicializando memoria com zeros
-        }
+        // Iniciando memoria com o proprio endereço em cada palavra
+        memoria = new Memoria(configuracao.getTamanhoMemoria());
+        cacheL1 = configuracao.getCacheL1() != null ? new CacheDados(configuracao.getCacheL1()) : null;
+        cacheL2 = configuracao.getCacheL2() != null ? new CacheDados(configuracao.getCacheL2()) : null;
+        preditor = PreditorDesvios.criar(configuracao);
+        btb = new BufferAlvosDesvios(configuracao.getEntradasBTB());
 //passo 18
         // Inicializando estado do simulador
-        instrucoes = new ArrayList<>();
+        programa = Programa.VAZIO;
+        estadoInstrucoes = new int[0];
+        execucoesInstrucoes = new int[0];
         pc = 0;
         cicloAtual = 0;
         totalCiclos = 0;
         ciclosBolha = 0;
         simulacaoCompleta = false;
+        simulacaoInterrompida = false;
+        cicloUltimoCommit = 0;
         instrucoesExecutadas = 0;
-        logExecucao = new ArrayList<>();
+        desviosCommitados = 0;
+        desviosPrevistosErrado = 0;
+        ciclosPenalidadeDesvio = 0;
+        cargasEncaminhadas = 0;
+        ciclosEsperaMemoria = 0;
+        log = new LogEventos(configuracao.getCapacidadeLog(), NivelLog.RESUMO);
+        log.setEstacoes(estacoes);
     }
 
+    /**
+     * Volta ao estado inicial reaproveitando todas as estruturas: só as instrucoes ainda em voo
+     * (slots do ROB e estacoes ocupados) e o que a execução anterior escreveu são limpos.
+     * Nem a memoria desaloca: as paginas escritas são preenchidas de novo no lugar.
+     */
     public void reiniciar() {
 
-        for (int i = 0; i < instrucoes.size(); i++) {
-            instrucoes.get(i).setEstadoExecucao(0);
-            instrucoes.get(i).resetExecucoes();
-        }
+        Arrays.fill(estadoInstrucoes, 0);
+        Arrays.fill(execucoesInstrucoes, 0);
 
         // Inicializando Banco de Registradores
-        bancoRegistradores = new HashMap<>();
-        for (int i = 0; i <= NUM_REGISTRADORES_PUBLICOS; i++) {
-            bancoRegistradores.put("R" + i, (float) i);
+        for (int i = 0; i < configuracao.getNumRegistradoresPublicos(); i++) {
+            bancoRegistradores[i] = i;
         }
 
         // Inicializando Banco de Registradores privados
-        bancoPrivado = new HashMap<>();
-        filaRegistradoresLivres = new LinkedList<>();
-        for (int i = 0; i <= NUM_REGISTRADORES_PRIVADOS; i++) {
-            bancoPrivado.put("P" + i, (float) i);
-            filaRegistradoresLivres.offer("P" + i);
+        inicioFilaLivres = 0;
+        qtdeRegistradoresLivres = 0;
+        for (int i = 0; i < configuracao.getNumRegistradoresPrivados(); i++) {
+            bancoPrivado[i] = i;
+            produtorPrivado[i] = null;
+            liberarRegistradorPrivado(i);
         }
 
-        mapaRenomeacao = new HashMap<>();
+        Arrays.fill(mapaRenomeacao, -1);
 
-        // Inicializando Buffer de Reordenamento
-        rob = new ArrayList<>(TAMANHO_ROB);
-        for (int i = 0; i < TAMANHO_ROB; i++) {
-            rob.add(new ReorderBufferSlot(i));
+        // Buffer de Reordenamento: commit e cancelamento já limpam os slots que liberam
+        for (int i = 0; i < rob.size(); i++) {
+            if (rob.get(i).isBusy()) {
+                rob.get(i).limpar();
+            }
         }
         robHead = 0;
         robTail = 0;
 
-        // Inicializando Estacoes de Reserva
-        estacoesAdd = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_ADD; i++) {
-            estacoesAdd.add(new EstacaoDeReserva("Add" + (i + 1)));
-        }
-
-        estacoesMul = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_MUL; i++) {
-            estacoesMul.add(new EstacaoDeReserva("Mult" + (i + 1)));
+        // Estacoes de Reserva: idem na escrita de resultado e no cancelamento
+        for (EstacaoDeReserva estacao : estacoes) {
+            if (estacao.isBusy()) {
+                listasDeEspera.remover(estacao.getIndice(), ListasDeEspera.OPERANDO_J);
+                listasDeEspera.remover(estacao.getIndice(), ListasDeEspera.OPERANDO_K);
+                estacao.limpar();
+            }
         }
-
-        estacoesLoad = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_LOAD; i++) {
-            estacoesLoad.add(new EstacaoDeReserva("Load" + (i + 1)));
+        Arrays.fill(estacaoDoSlot, null);
+        for (UnidadeFuncional[] doTipo : unidades) {
+            for (UnidadeFuncional unidade : doTipo) {
+                unidade.limpar();
+            }
         }
 
-        estacoesBranches = new ArrayList<>();
-        for (int i = 0; i < NUM_ESTACOES_BRANCHES; i++) {
-            estacoesBranches.add(new EstacaoDeReserva("Branch" + (i + 1)));
+        // Iniciando memoria (as paginas escritas continuam alocadas)
+        memoria.reiniciar();
+        if (cacheL1 != null) {
+            cacheL1.limpar();
         }
-
-        // Iniciando memoria
-        memoria = new HashMap<>();
-        for (int i = 0; i < 1024; i++) {
-            memoria.put(i, (float) i); // Inicializando memoria com zeros
+        if (cacheL2 != null) {
+            cacheL2.limpar();
         }
+        preditor.reiniciar();
+        btb.limpar();
 
         // Inicializando estado do simulador
         pc = 0;
@@ -197,33 +242,79 @@ public class Simulador {
         totalCiclos = 0;
         ciclosBolha = 0;
         simulacaoCompleta = false;
+        simulacaoInterrompida = false;
+        cicloUltimoCommit = 0;
         instrucoesExecutadas = 0;
-        logExecucao = new ArrayList<>();
+        desviosCommitados = 0;
+        desviosPrevistosErrado = 0;
+        ciclosPenalidadeDesvio = 0;
+        cargasEncaminhadas = 0;
+        ciclosEsperaMemoria = 0;
+        log.limpar();
+    }
+
+    /**
+     * Monta o array com todas as estacoes e prepara as listas de espera do CDB
+     */
+    private void unificarEstacoes() {
+        estacoes = getReservationStationsState().toArray(new EstacaoDeReserva[0]);
+        for (int i = 0; i < estacoes.length; i++) {
+            estacoes[i].setIndice(i);
+        }
+        if (listasDeEspera == null) {
+            listasDeEspera = new ListasDeEspera(configuracao.getNumRegistradoresPrivados(), estacoes.length);
+        } else {
+            listasDeEspera.limpar();
+        }
+    }
+
+    /**
+     * Cria as unidades funcionais descritas na configuração
+     */
+    private void criarUnidadesFuncionais() {
+        unidades = new UnidadeFuncional[TipoUnidadeFuncional.values().length][];
+        for (TipoUnidadeFuncional tipo : TipoUnidadeFuncional.values()) {
+            UnidadeFuncional[] doTipo = new UnidadeFuncional[configuracao.getNumUnidades(tipo)];
+            for (int i = 0; i < doTipo.length; i++) {
+                doTipo[i] = new UnidadeFuncional(tipo.getNome() + (i + 1), tipo, configuracao.getIntervaloIniciacao(tipo));
+            }
+            unidades[tipo.ordinal()] = doTipo;
+        }
     }
 
     public void proximoCiclo() {
+        proximoCiclo(false);
+    }
+
+    /**
+     * Executa um ciclo; com saltarCiclosOciosos, se o ciclo for ocioso executa de uma vez
+     * todos os ciclos ociosos seguidos, até o proximo ciclo em que algo acontece
+     */
+    private void proximoCiclo(boolean saltarCiclosOciosos) {
         //System.out.println("Executando ciclo: " + cicloAtual);
         if (!simulacaoCompleta) {
-            logExecucao.add("Ciclo " + (cicloAtual+1));
+            log.registrar(TipoEvento.CICLO, cicloAtual);
 
-            // --- LOOP DETECTION ---
-            // Verifica se o numero de ciclos excedeu o limite
-            if (cicloAtual > LIMITE_CICLOS) {
-                logExecucao.add("Timeout: Numero de ciclos excedeu o limite de " + LIMITE_CICLOS + ". Simulacao interrompida.");
-                simulacaoCompleta = true;
-                logExecucao.add("Simulacao completa. Total de ciclos gastos: 0 (loop detectado)");
+            // Watchdog: sem commit na janela o pipeline está travado (deadlock ou livelock)
+            if (cicloAtual - cicloUltimoCommit > configuracao.getJanelaWatchdog()) {
+                registrarBloqueio();
+                interromper(false);
+                return;
+            }
+            if (configuracao.getLimiteCiclos() > 0 && cicloAtual > configuracao.getLimiteCiclos()) {
+                log.registrar(TipoEvento.LIMITE_CICLOS, cicloAtual, -1, -1, -1, configuracao.getLimiteCiclos(), -1, 0.0f);
+                interromper(true);
                 return;
             }
-            // Verifica se alguma instrucao esta "presa" por muitos ciclos
-            for (Instrucao inst : instrucoes) {
-                if (inst.getEstadoExecucao() > 0 && inst.getQtdeExecucoes() > LIMITE_INSTRUCAO) {
-                    logExecucao.add("Timeout: Instrucao presa por mais de " + LIMITE_INSTRUCAO + " ciclos: " + inst.toString());
-                    simulacaoCompleta = true;
-                    logExecucao.add("Simulacao completa. Total de ciclos gastos: 0 (loop detectado)");
+
+            // Com o rastreamento ligado cada ciclo precisa dos seus eventos no log
+            if (saltarCiclosOciosos && !log.registra(TipoEvento.CICLO)) {
+                int ociosos = contarCiclosOciosos();
+                if (ociosos > 0) {
+                    saltarCiclos(ociosos);
                     return;
                 }
             }
-            // --- FIM LOOP DETECTION ---
 
             writeResult();
 
@@ -232,20 +323,127 @@ public class Simulador {
             issue();
 
             commit();
-            if (pc == instrucoes.size() && robVazio()) {
+            if (pc == programa.tamanho() && robVazio()) {
                 simulacaoCompleta = true;
-                logExecucao.add("Simulacao completa. Total de ciclos gastos: " + totalCiclos);
                 totalCiclos = cicloAtual - 1;
+                log.registrar(TipoEvento.FIM_SIMULACAO, cicloAtual, -1, -1, -1, totalCiclos, -1, 0.0f);
             } else {
-                logExecucao.add("-------------------------------------------------------------");
+                log.registrar(TipoEvento.SEPARADOR, cicloAtual);
             }
             cicloAtual++;
             confereSituacaoROB();
         }
     }
 
+    /**
+     * Registra no log a cabeça do ROB e as estacoes ocupadas quando o watchdog dispara
+     */
+    private void registrarBloqueio() {
+        ReorderBufferSlot cabeca = rob.get(robHead);
+        if (cabeca.isBusy()) {
+            log.registrar(TipoEvento.WATCHDOG, cicloAtual, -1, robHead, cabeca.getIndiceInstrucao(),
+                    configuracao.getJanelaWatchdog(), cabeca.isPronto() ? 1 : 0, 0.0f);
+        } else {
+            log.registrar(TipoEvento.WATCHDOG, cicloAtual, -1, -1, -1, configuracao.getJanelaWatchdog(), 0, 0.0f);
+        }
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
+            if (estacao.isBusy()) {
+                log.registrar(TipoEvento.ESTACAO_BLOQUEADA, cicloAtual, i, -1,
+                        estacao.getSlotROB().getIndiceInstrucao(), estacao.getQj(), estacao.getQk(), 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Encerra a simulação sem que o programa tenha terminado, registrando os ciclos já
+     * simulados e se quem parou foi o limite de ciclos ou o watchdog
+     */
+    private void interromper(boolean peloLimite) {
+        simulacaoCompleta = true;
+        simulacaoInterrompida = true;
+        log.registrar(TipoEvento.SIMULACAO_INTERROMPIDA, cicloAtual, -1, -1, -1, cicloAtual, peloLimite ? 1 : 0, 0.0f);
+    }
+
+    /**
+     * Conta quantos ciclos seguidos, a partir do atual, não mudam o estado do simulador
+     * além de contar ciclos de execução e bolhas: nenhuma escrita de resultado, nenhum commit,
+     * nenhuma emissão e nenhuma estacao começando ou terminando de executar.
+     * Retorna 0 se o ciclo atual não é ocioso, e guarda em bolhasPorCicloOcioso as bolhas
+     * que cada um desses ciclos criaria.
+     */
+    private int contarCiclosOciosos() {
+        ReorderBufferSlot cabeca = rob.get(robHead);
+        if (cabeca.isBusy() && cabeca.isPronto()) {
+            return 0; // commit
+        }
+        // Não passa do ciclo em que o watchdog ou o limite de ciclos (se houver) interrompem a simulação
+        long limite = (long) cicloUltimoCommit + configuracao.getJanelaWatchdog() + 1;
+        if (configuracao.getLimiteCiclos() > 0) {
+            limite = Math.min(limite, (long) configuracao.getLimiteCiclos() + 1);
+        }
+        int ociosos = (int) Math.min(limite - cicloAtual, Integer.MAX_VALUE);
+        int bolhas = 0;
+        int esperasMemoria = 0;
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
+            if (!estacao.isBusy()) {
+                continue;
+            }
+            if (estacao.getCiclosRestantes() == 0) {
+                return 0; // escrita de resultado
+            }
+            if (!estacao.prontaParaExecucao()) {
+                bolhas++; // aguardando operandos até alguma escrita de resultado
+            } else if (estacao.getUnidade() == null && aguardaStoreAnterior(estacao)) {
+                // O STORE só fica conhecido com alguma escrita de resultado
+                bolhas++;
+                esperasMemoria++;
+            } else if (estacao.getUnidade() == null) {
+                // Aguardando unidade funcional até a primeira do tipo ficar livre
+                int liberacao = Integer.MAX_VALUE;
+                for (UnidadeFuncional unidade : unidades[TipoUnidadeFuncional.de(estacao.getOp()).ordinal()]) {
+                    liberacao = Math.min(liberacao, unidade.getProximaAceitacao());
+                }
+                if (liberacao <= cicloAtual) {
+                    return 0; // começa a executar
+                }
+                ociosos = Math.min(ociosos, liberacao - cicloAtual);
+                bolhas++;
+            } else {
+                // Executando: o ciclo em que termina não é ocioso
+                ociosos = Math.min(ociosos, estacao.getCiclosRestantes() - 1);
+            }
+        }
+        if (pc < programa.tamanho()) {
+            if (!rob.get(robTail).isBusy() && qtdeRegistradoresLivres > 0
+                    && encontrarEstacaoLivre(programa.getOp(pc)) != null) {
+                return 0; // emissão
+            }
+            bolhas++; // emissão parada até um commit ou escrita de resultado
+        }
+        bolhasPorCicloOcioso = bolhas;
+        esperasMemoriaPorCicloOcioso = esperasMemoria;
+        return Math.max(ociosos, 0);
+    }
+
+    /**
+     * Executa de uma vez ciclos ociosos contados por contarCiclosOciosos()
+     */
+    private void saltarCiclos(int ciclos) {
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
+            if (estacao.isBusy() && estacao.getUnidade() != null) {
+                estacao.setCiclosRestantes(estacao.getCiclosRestantes() - ciclos);
+            }
+        }
+        ciclosBolha += ciclos * bolhasPorCicloOcioso;
+        ciclosEsperaMemoria += ciclos * esperasMemoriaPorCicloOcioso;
+        cicloAtual += ciclos;
+    }
+
     public void confereSituacaoROB() {
-        for (int i = robHead; i != robTail; i = (i + 1) % TAMANHO_ROB) {
+        for (int i = robHead; i != robTail; i = (i + 1) % configuracao.getTamanhoROB()) {
             ReorderBufferSlot slot = rob.get(i);
             //System.out.println("Slot " + i + ": " + slot.getInstrucao() + ", Busy: " + slot.isBusy());
         }
@@ -253,48 +451,39 @@ public class Simulador {
 
     void writeResult() {
         // Verifica estacoes de reserva que terminaram a execucao
-        List<EstacaoDeReserva> todasEstacoes = new ArrayList<>();
-        todasEstacoes.addAll(estacoesAdd);
-        todasEstacoes.addAll(estacoesMul);
-        todasEstacoes.addAll(estacoesLoad);
-        todasEstacoes.addAll(estacoesBranches);
-
-        for (EstacaoDeReserva estacao : todasEstacoes) {
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
             // System.out.println(
             // "Ciclos restantes para a estacao " + estacao.getNome() + ": " +
             // estacao.getCiclosRestantes());
             if (estacao.isBusy() && estacao.getCiclosRestantes() == 0) {
-                String regPrivado = estacao.getDest();
+                int regPrivado = estacao.getDest();
 
                 // Atualiza o slot do ROB
-                ReorderBufferSlot slot = encontrarSlotROB(regPrivado);
+                ReorderBufferSlot slot = estacao.getSlotROB();
                 if (slot.getCicloEscrita() != cicloAtual) {
-                    Float resultado = estacao.calcularResultado();
+                    float resultado = estacao.calcularResultado();
                     slot.setCicloEscrita(cicloAtual);
                     slot.setCicloCommit(cicloAtual);
                     slot.setEstado(EstadoInstrucao.ESCRITA);
                     slot.setPronto(true);
-                    Instrucao inst = slot.getInstrucao();
-                    if (inst != null) inst.setEstadoExecucao(3); // resultado escrito
+                    marcarEstadoInstrucao(slot.getIndiceInstrucao(), 3); // resultado escrito
                     if (estacao.getOp().isMemoryOperation()) {
-                        // Para LOAD, lê da memoria
+                        int endereco = (int) resultado;
+                        slot.setEndereco(endereco);
                         if (estacao.getOp() == OpCode.LOAD) {
-                            int endereco = resultado.intValue();
-                            resultado = memoria.getOrDefault(endereco, 0.0f);
+                            // Lê do STORE anterior mais novo no mesmo endereço, ou da memoria
+                            ReorderBufferSlot store = storeAnterior(slot, endereco);
+                            resultado = store != null ? valorStore(store) : lerMemoria(endereco);
 
                             // Propaga resultado via CDB para estacoes de reserva que estavam esperando
                             propagarResultadoCDB(regPrivado, resultado);
                         } else { // STORE
-                            int endereco = resultado.intValue();
-                            Float valor = bancoPrivado.get(regPrivado);
-                            memoria.put(endereco, valor);
-                            resultado = valor; // Para STORE, o resultado e o valor armazenado
+                            // A memoria só é escrita no commit; o resultado é o valor a armazenar
+                            resultado = estacao.getVj();
                         }
                     } else if (estacao.getOp().isBranch()) {
-                        //System.out.println("Branch detected");
-                        if (resultado == 1) {
-                            executarBEQ(slot);
-                        }
+                        resolverDesvio(slot, resultado == 1);
                     } else {
                         // Propaga resultado via CDB para estacoes de reserva que estavam esperando
                         propagarResultadoCDB(regPrivado, resultado);
@@ -309,61 +498,116 @@ public class Simulador {
         }
     }
 
-    private void executarBEQ(ReorderBufferSlot slot) {
-        for (int i = robHead; i != robTail; i = (i + 1) % TAMANHO_ROB) {
-            if (!rob.get(i).equals(slot)) {
-                if (rob.get(i).isBusy()) {
-                    if (rob.get(i).getCicloIssue() != -1 && rob.get(i).getCicloIssue() >= slot.getCicloIssue()) {
-                        Instrucao inst = rob.get(i).getInstrucao();
-                        if (inst != null) {
-                            logExecucao.add("BEQ executado, instrucao cancelada: " + inst.toString());
-                        }
-                        rob.get(i).limpar();
-                    }
-                }
+    /**
+     * Confere o caminho seguido na emissão de um desvio com o seu resultado.
+     * Só uma previsão errada cancela as instrucoes emitidas depois dele e redireciona o PC.
+     */
+    private void resolverDesvio(ReorderBufferSlot slot, boolean tomado) {
+        int indice = slot.getIndiceInstrucao();
+        int proximo = tomado ? programa.getImediato(indice) - 1 : indice + 1;
+        if (proximo == slot.getProximoPrevisto()) {
+            return;
+        }
+        slot.setPrevisaoErrada(true);
+        cancelarMaisNovas(slot);
+        pc = proximo;
+        preditor.recuperar(slot.getHistoricoPrevisao(), tomado);
+    }
+
+    private void cancelarMaisNovas(ReorderBufferSlot slot) {
+        // Cancela, da cauda ate o branch, as instrucoes emitidas depois dele
+        int fimBranch = (slot.getIndice() + 1) % configuracao.getTamanhoROB();
+        while (robTail != fimBranch) {
+            robTail = (robTail - 1 + configuracao.getTamanhoROB()) % configuracao.getTamanhoROB();
+            ReorderBufferSlot cancelado = rob.get(robTail);
+            if (cancelado.isBusy()) {
+                log.registrar(TipoEvento.CANCELAMENTO, cicloAtual, -1, cancelado.getIndice(),
+                        cancelado.getIndiceInstrucao(), -1, -1, 0.0f);
+                desfazerRenomeacao(cancelado);
+                cancelado.limpar();
             }
         }
-        pc = slot.getInstrucao().getImediato() - 1; // Atualiza o PC para o endereço do branch
     }
 
-    /*
-     * Funcao que encontra um slot do ROB baseado no registrador renomeado.
-     * Se o registrador renomeado for encontrado, retorna o slot correspondente.
-     * Caso contrario, retorna null.
+    /**
+     * Desfaz a renomeação de uma instrucao cancelada, liberando sua estacao e seu registrador privado
      */
-    ReorderBufferSlot encontrarSlotROB(String regPrivado) {
-        ReorderBufferSlot slotEncontrado = null;
-        for (ReorderBufferSlot slot : rob) {
-            if (slot.isBusy() && slot.getRegistradorRenomeado().equals(regPrivado)) {
-                slotEncontrado = slot;
-            }
+    private void desfazerRenomeacao(ReorderBufferSlot cancelado) {
+        int regPrivado = cancelado.getRegistradorRenomeado();
+        int regPublico = cancelado.getRegistradorPublico();
+        if (regPublico >= 0) {
+            // Restaura o mapeamento anterior apenas se o produtor dele ainda estiver no ROB
+            int anterior = cancelado.getMapeamentoAnterior();
+            mapaRenomeacao[regPublico] = (anterior >= 0 && produtorPrivado[anterior] != null) ? anterior : -1;
+        }
+        // A estacao pode já ter escrito o resultado e estar com outra instrucao
+        EstacaoDeReserva estacao = estacaoDoSlot[cancelado.getIndice()];
+        if (estacao != null && estacao.isBusy() && estacao.getSlotROB() == cancelado) {
+            listasDeEspera.remover(estacao.getIndice(), ListasDeEspera.OPERANDO_J);
+            listasDeEspera.remover(estacao.getIndice(), ListasDeEspera.OPERANDO_K);
+            estacao.limpar();
+        }
+        estacaoDoSlot[cancelado.getIndice()] = null;
+        if (regPrivado >= 0) {
+            produtorPrivado[regPrivado] = null;
+            liberarRegistradorPrivado(regPrivado);
         }
-        return slotEncontrado;
     }
 
     /**
-     * Propaga resultado via Common Data Bus (CDB)
+     * Retira o proximo registrador privado da fila de livres
      */
-    private void propagarResultadoCDB(String regPrivado, Float valor) {
-        // Atualiza estacoes de reserva que estavam esperando este resultado
-        List<EstacaoDeReserva> todasEstacoes = new ArrayList<>();
-        todasEstacoes.addAll(estacoesAdd);
-        todasEstacoes.addAll(estacoesMul);
-        todasEstacoes.addAll(estacoesLoad);
-        todasEstacoes.addAll(estacoesBranches);
+    private int alocarRegistradorPrivado() {
+        int regPrivado = filaRegistradoresLivres[inicioFilaLivres];
+        inicioFilaLivres = (inicioFilaLivres + 1) % filaRegistradoresLivres.length;
+        qtdeRegistradoresLivres--;
+        return regPrivado;
+    }
 
-        for (EstacaoDeReserva estacao : todasEstacoes) {
-            if (estacao.isBusy()) {
-                if (estacao.getQj() != null && estacao.getQj().equals(regPrivado)) {
-                    estacao.setVj(valor);
-                    estacao.setQj(null);
-                }
-                if (estacao.getQk() != null && estacao.getQk().equals(regPrivado)) {
-                    estacao.setVk(valor);
-                    estacao.setQk(null);
-                }
+    /**
+     * Devolve um registrador privado ao fim da fila de livres
+     */
+    private void liberarRegistradorPrivado(int regPrivado) {
+        int fim = (inicioFilaLivres + qtdeRegistradoresLivres) % filaRegistradoresLivres.length;
+        filaRegistradoresLivres[fim] = regPrivado;
+        qtdeRegistradoresLivres++;
+    }
+
+    /**
+     * Lê uma palavra da memoria (enderecos fora da memoria valem 0)
+     */
+    private float lerMemoria(int endereco) {
+        return memoria.ler(endereco);
+    }
+
+    /**
+     * Escreve uma palavra na memoria (escritas fora da memoria são descartadas)
+     */
+    private void escreverMemoria(int endereco, float valor) {
+        if (!memoria.escrever(endereco, valor)) {
+            log.registrar(TipoEvento.ESCRITA_FORA_MEMORIA, cicloAtual, -1, -1, -1, endereco, -1, 0.0f);
+        }
+    }
+
+    /**
+     * Propaga resultado via Common Data Bus (CDB)
+     */
+    private void propagarResultadoCDB(int regPrivado, float valor) {
+        // Escreve o resultado no registrador privado
+        bancoPrivado[regPrivado] = valor;
+
+        // Atualiza apenas as estacoes de reserva que estavam esperando este resultado
+        for (int espera = listasDeEspera.primeiro(regPrivado); espera >= 0; espera = listasDeEspera.proximo(espera)) {
+            EstacaoDeReserva estacao = estacoes[ListasDeEspera.estacao(espera)];
+            if (ListasDeEspera.operando(espera) == ListasDeEspera.OPERANDO_J) {
+                estacao.setVj(valor);
+                estacao.setQj(-1);
+            } else {
+                estacao.setVk(valor);
+                estacao.setQk(-1);
             }
         }
+        listasDeEspera.esvaziar(regPrivado);
     }
 
     /**
@@ -371,17 +615,26 @@ public class Simulador {
      */
     private void execute() {
 
-        List<EstacaoDeReserva> todasEstacoes = new ArrayList<>();
-        todasEstacoes.addAll(estacoesAdd);
-        todasEstacoes.addAll(estacoesMul);
-        todasEstacoes.addAll(estacoesLoad);
-        todasEstacoes.addAll(estacoesBranches);
+        despacharParaUnidades();
 
-        for (EstacaoDeReserva estacao : todasEstacoes) {
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
             if (estacao.isBusy()) {
                 boolean pronta = estacao.prontaParaExecucao();
-                if (estacao.getCiclosRestantes() > 0 && pronta) {
-                    ReorderBufferSlot slot = encontrarSlotROB(estacao.getDest());
+                if (pronta && estacao.getUnidade() == null && aguardaStoreAnterior(estacao)) {
+                    // LOAD pronto, mas um STORE anterior ainda pode escrever no mesmo endereço
+                    ciclosBolha++;
+                    ciclosEsperaMemoria++;
+                    log.registrar(TipoEvento.BOLHA_MEMORIA, cicloAtual, estacao.getIndice(), estacao.getSlotROB().getIndice(),
+                            estacao.getSlotROB().getIndiceInstrucao(), storeAnterior(estacao.getSlotROB(),
+                                    estacao.calcularEndereco()).getIndiceInstrucao(), -1, 0.0f);
+                } else if (pronta && estacao.getUnidade() == null) {
+                    // Operandos prontos, mas todas as unidades do tipo estão ocupadas
+                    ciclosBolha++;
+                    log.registrar(TipoEvento.BOLHA_UNIDADE, cicloAtual, estacao.getIndice(), estacao.getSlotROB().getIndice(),
+                            estacao.getSlotROB().getIndiceInstrucao(), TipoUnidadeFuncional.de(estacao.getOp()).ordinal(), -1, 0.0f);
+                } else if (estacao.getCiclosRestantes() > 0 && pronta) {
+                    ReorderBufferSlot slot = estacao.getSlotROB();
                     if (slot != null) {
                         slot.setEstado(EstadoInstrucao.EXECUTANDO);
                         if (slot.getCicloExecucao() == -1)
@@ -390,8 +643,7 @@ public class Simulador {
                         if (terminou) {
                             slot.setCicloEscrita(cicloAtual);
                             // logExecucao.add("Execute: " + estacao.getNome() + " completou execucao");
-                            Instrucao inst = slot.getInstrucao();
-                            if (inst != null) inst.setEstadoExecucao(2); // executada
+                            marcarEstadoInstrucao(slot.getIndiceInstrucao(), 2); // executada
                             slot.setEstado(EstadoInstrucao.EXECUTADO);
                         }
                     }
@@ -399,95 +651,253 @@ public class Simulador {
                 if (!pronta) {
                     ciclosBolha++;
                     // Log detalhado do motivo da bolha
-                    String motivo = "Bolha criada: estacao " + estacao.getNome() + " aguardando operandos ";
-                    if (estacao.getQj() != null) motivo += "Qj=" + estacao.getQj() + " ";
-                    if (estacao.getQk() != null) motivo += "Qk=" + estacao.getQk();
-                    logExecucao.add(motivo.trim());
+                    log.registrar(TipoEvento.BOLHA_OPERANDOS, cicloAtual, estacao.getIndice(), estacao.getSlotROB().getIndice(),
+                            estacao.getSlotROB().getIndiceInstrucao(), estacao.getQj(), estacao.getQk(), 0.0f);
                 }
             }
         }
 
     }
 
+    /**
+     * Entrega as estacoes prontas às unidades funcionais livres, da instrucao mais antiga
+     * (mais perto da cabeça do ROB) para a mais nova
+     */
+    private void despacharParaUnidades() {
+        for (int k = 0, i = robHead; k < configuracao.getTamanhoROB(); k++, i = (i + 1) % configuracao.getTamanhoROB()) {
+            ReorderBufferSlot slot = rob.get(i);
+            if (!slot.isBusy()) {
+                break; // os slots ocupados são contiguos a partir da cabeça
+            }
+            EstacaoDeReserva estacao = estacaoDoSlot[i];
+            if (estacao == null || !estacao.isBusy() || estacao.getSlotROB() != slot
+                    || estacao.getUnidade() != null || !estacao.prontaParaExecucao()) {
+                continue;
+            }
+            ReorderBufferSlot store = null;
+            if (estacao.getOp() == OpCode.LOAD) {
+                store = storeAnterior(slot, estacao.calcularEndereco());
+                if (store != null && !valorStoreDisponivel(store)) {
+                    continue; // ordem de memoria: aguarda o STORE anterior
+                }
+            }
+            UnidadeFuncional[] doTipo = unidades[TipoUnidadeFuncional.de(estacao.getOp()).ordinal()];
+            for (UnidadeFuncional unidade : doTipo) {
+                if (unidade.disponivel(cicloAtual)) {
+                    unidade.aceitar(cicloAtual);
+                    estacao.setUnidade(unidade);
+                    if (store != null) {
+                        // Encaminhamento do STORE para o LOAD, sem acessar caches nem memoria
+                        estacao.setCiclosRestantes(LATENCIA_ENCAMINHAMENTO);
+                        cargasEncaminhadas++;
+                    } else if (cacheL1 != null && estacao.getOp().isMemoryOperation()) {
+                        estacao.setCiclosRestantes(latenciaAcessoMemoria(estacao.calcularEndereco(), estacao.getOp()));
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Procura, do slot de um LOAD em direção à cabeça do ROB, o STORE mais novo que decide o valor
+     * lido: o primeiro com endereço ainda desconhecido ou igual ao do LOAD.
+     * Os LOAD/STORE em ordem no ROB fazem o papel da fila de load/store.
+     * @return o slot desse STORE, ou null se o LOAD lê da memoria
+     */
+    private ReorderBufferSlot storeAnterior(ReorderBufferSlot load, int endereco) {
+        int tamanhoROB = configuracao.getTamanhoROB();
+        for (int i = load.getIndice(); i != robHead; ) {
+            i = (i - 1 + tamanhoROB) % tamanhoROB;
+            ReorderBufferSlot slot = rob.get(i);
+            if (programa.getOp(slot.getIndiceInstrucao()) != OpCode.STORE) {
+                continue;
+            }
+            if (slot.isPronto()) {
+                if (slot.getEndereco() == endereco) {
+                    return slot;
+                }
+            } else if (!estacaoDoSlot[i].isEnderecoPronto() || estacaoDoSlot[i].calcularEndereco() == endereco) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifica se um STORE devolvido por storeAnterior() tem endereço e valor conhecidos,
+     * de modo que o LOAD pode receber o valor dele
+     */
+    private boolean valorStoreDisponivel(ReorderBufferSlot store) {
+        if (store.isPronto()) {
+            return true;
+        }
+        EstacaoDeReserva estacao = estacaoDoSlot[store.getIndice()];
+        return estacao.isEnderecoPronto() && estacao.getQj() < 0;
+    }
+
+    private float valorStore(ReorderBufferSlot store) {
+        return store.isPronto() ? store.getResultado() : estacaoDoSlot[store.getIndice()].getVj();
+    }
+
+    /**
+     * Verifica se um LOAD com o endereço pronto está impedido de começar por um STORE anterior
+     */
+    private boolean aguardaStoreAnterior(EstacaoDeReserva estacao) {
+        if (estacao.getOp() != OpCode.LOAD) {
+            return false;
+        }
+        ReorderBufferSlot store = storeAnterior(estacao.getSlotROB(), estacao.calcularEndereco());
+        return store != null && !valorStoreDisponivel(store);
+    }
+
+    /**
+     * Consulta as caches com o endereço de um LOAD/STORE que começa a executar e retorna a sua latencia:
+     * a de cada nivel consultado até o primeiro acerto, mais a latencia da operação se todos falharem
+     */
+    private int latenciaAcessoMemoria(int endereco, OpCode op) {
+        int latencia = cacheL1.getConfiguracao().getLatencia();
+        if (cacheL1.acessar(endereco)) {
+            return latencia;
+        }
+        if (cacheL2 != null) {
+            latencia += cacheL2.getConfiguracao().getLatencia();
+            if (cacheL2.acessar(endereco)) {
+                return latencia;
+            }
+        }
+        return latencia + configuracao.getLatencia(op);
+    }
+
+    /**
+     * Fase de Issue: emite em ordem ate larguraEmissao instrucoes por ciclo.
+     * A emissão para na primeira instrucao que não encontra recurso livre,
+     * contando uma bolha por ciclo de parada.
+     */
     private void issue() {
+    for (int emitidas = 0; emitidas < configuracao.getLarguraEmissao(); emitidas++) {
+        if (!emitirProximaInstrucao()) {
+            return;
+        }
+    }
+}
+
+/**
+ * Emite a instrucao apontada pelo PC, retornando false se não havia instrucao ou recurso livre
+ */
+private boolean emitirProximaInstrucao() {
     // Verifica se há instruções para processar
-    if (pc >= instrucoes.size()) {
-        return;
+    if (pc >= programa.tamanho()) {
+        return false;
     }
     
     // Verifica se há espaço no ROB
     if (rob.get(robTail).isBusy()) {
-        logExecucao.add("ROB cheio, não foi possivel emitir a instrucao: " + instrucoes.get(pc).toString());
+        log.registrar(TipoEvento.ROB_CHEIO, cicloAtual, -1, -1, pc, -1, -1, 0.0f);
         ciclosBolha++;
-        return;
+        return false;
     }
     
-    Instrucao inst = instrucoes.get(pc);
-    EstacaoDeReserva estacao = encontrarEstacaoLivre(inst.getOp());
+    EstacaoDeReserva estacao = encontrarEstacaoLivre(programa.getOp(pc));
     
     // Verifica se há estação de reserva disponível
     if (estacao == null) {
-        logExecucao.add("Nenhuma estacao de reserva disponivel, não foi possivel emitir a instrucao: " + inst.toString());
+        log.registrar(TipoEvento.SEM_ESTACAO, cicloAtual, -1, -1, pc, -1, -1, 0.0f);
         ciclosBolha++;
-        return;
+        return false;
+    }
+
+    // Verifica se há registrador privado livre para a renomeação
+    if (qtdeRegistradoresLivres == 0) {
+        log.registrar(TipoEvento.SEM_REGISTRADOR, cicloAtual, -1, -1, pc, -1, -1, 0.0f);
+        ciclosBolha++;
+        return false;
     }
     
-    // Emite a instrução
-    emitirInstrucao(inst, estacao);
-    pc++;
-    atualizarEstadoInstrucao(inst);
+    // Emite a instrução; depois de um desvio a emissão segue o caminho previsto
+    int indice = pc;
+    ReorderBufferSlot slot = rob.get(robTail);
+    emitirInstrucao(indice, estacao);
+    pc = programa.getOp(indice).isBranch() ? preverDesvio(indice, slot) : indice + 1;
+    atualizarEstadoInstrucao(indice);
+    return true;
+}
+
+/**
+ * Prevê o desvio emitido no slot e retorna a posição da proxima instrução a emitir.
+ * O caminho tomado só é seguido se o BTB conhece o alvo.
+ */
+private int preverDesvio(int indice, ReorderBufferSlot slot) {
+    int historico = preditor.getHistorico();
+    int proximo = indice + 1;
+    boolean tomado = false;
+    if (preditor.prever(indice)) {
+        int alvo = btb.procurar(indice);
+        if (alvo >= 0) {
+            proximo = alvo;
+            tomado = true;
+        }
+    }
+    preditor.especular(tomado);
+    slot.setHistoricoPrevisao(historico);
+    slot.setProximoPrevisto(proximo);
+    return proximo;
 }
 
 /**
  * Emite uma instrução para execução
  */
-private void emitirInstrucao(Instrucao inst, EstacaoDeReserva estacao) {
+private void emitirInstrucao(int indice, EstacaoDeReserva estacao) {
     ReorderBufferSlot slot = rob.get(robTail);
     
     // Configura slot do ROB
-    configurarSlotROB(slot, inst);
+    configurarSlotROB(slot, indice);
     
     // Verifica dependências de dados e configura operandos
-    verificaDependenciaVDD(inst, estacao);
+    verificaDependenciaVDD(indice, estacao);
     
     // Configura a estação de reserva
-    configurarEstacaoReserva(estacao, inst);
+    configurarEstacaoReserva(estacao, indice);
+    estacao.setSlotROB(slot);
+    estacaoDoSlot[slot.getIndice()] = estacao;
     
     // Processa renomeação de registradores se necessário
-    if (inst.podeEscrever() && !filaRegistradoresLivres.isEmpty()) {
-        processarRenomeacaoRegistradores(inst, slot, estacao);
+    if (programa.podeEscrever(indice)) {
+        processarRenomeacaoRegistradores(indice, slot, estacao);
     } else {
         // Para instruções que não escrevem em registradores
-        String regPrivado = filaRegistradoresLivres.poll();
+        int regPrivado = alocarRegistradorPrivado();
         estacao.setDest(regPrivado);
         slot.setRegistradorRenomeado(regPrivado);
+        produtorPrivado[regPrivado] = slot;
     }
     
     // Avança a cauda do ROB
-    robTail = (robTail + 1) % TAMANHO_ROB;
+    robTail = (robTail + 1) % configuracao.getTamanhoROB();
 }
 
 /**
  * Configura o slot do ROB para uma nova instrução
  */
-private void configurarSlotROB(ReorderBufferSlot slot, Instrucao inst) {
+private void configurarSlotROB(ReorderBufferSlot slot, int indice) {
     slot.setBusy(true);
     slot.setPronto(false);
-    slot.setInstrucao(inst);
     slot.setEstado(EstadoInstrucao.PROCESSANDO);
     slot.setCicloIssue(cicloAtual);
+    slot.setIndiceInstrucao(indice);
 }
 
 /**
  * Configura a estação de reserva para executar a instrução
  */
-private void configurarEstacaoReserva(EstacaoDeReserva estacao, Instrucao inst) {
+private void configurarEstacaoReserva(EstacaoDeReserva estacao, int indice) {
+    OpCode op = programa.getOp(indice);
     estacao.setBusy(true);
-    estacao.setOp(inst.getOp());
-    estacao.setCiclosRestantes(inst.getCiclosDuracao());
+    estacao.setOp(op);
+    estacao.setCiclosRestantes(configuracao.getLatencia(op));
     
     // Configura imediato se presente
-    int imediato = inst.getImediato();
+    int imediato = programa.getImediato(indice);
     if (imediato != 0) {
         estacao.setImediato(imediato);
     }
@@ -496,149 +906,80 @@ private void configurarEstacaoReserva(EstacaoDeReserva estacao, Instrucao inst)
 /**
  * Processa o renomeação de registradores para instruções que escrevem em registradores
  */
-private void processarRenomeacaoRegistradores(Instrucao inst, ReorderBufferSlot slot, EstacaoDeReserva estacao) {
-    String regPublico = inst.getRd();
-    String regPrivado = filaRegistradoresLivres.poll();
+private void processarRenomeacaoRegistradores(int indice, ReorderBufferSlot slot, EstacaoDeReserva estacao) {
+    int regPublico = programa.getDestino(indice);
+    int regPrivado = alocarRegistradorPrivado();
     
     // Inicializa o valor no banco privado
-    bancoPrivado.put(regPrivado, bancoRegistradores.get(regPublico));
+    bancoPrivado[regPrivado] = bancoRegistradores[regPublico];
     
     // Configura os mapeamentos
     slot.setRegistradorRenomeado(regPrivado);
     slot.setRegistradorPublico(regPublico);
+    slot.setMapeamentoAnterior(mapaRenomeacao[regPublico]);
     estacao.setDest(regPrivado);
-    mapaRenomeacao.put(inst.getRd(), regPrivado);
+    mapaRenomeacao[regPublico] = regPrivado;
+    produtorPrivado[regPrivado] = slot;
 }
 
 /**
  * Atualiza o estado da instrução após emissão
  */
-private void atualizarEstadoInstrucao(Instrucao inst) {
-    if (inst.getEstadoExecucao() > 0) {
-        inst.addExecucao();                        
+private void atualizarEstadoInstrucao(int indice) {
+    if (estadoInstrucoes[indice] > 0) {
+        execucoesInstrucoes[indice]++;
     }
-    inst.setEstadoExecucao(1); // marcada como emitida
+    marcarEstadoInstrucao(indice, 1); // marcada como emitida
 }
 
-    // private void issue() {
-    //     if (pc < instrucoes.size()) {
-    //         if (!rob.get(robTail).isBusy()) {
-    //             Instrucao inst = instrucoes.get(pc);
-    //             EstacaoDeReserva estacao = encontrarEstacaoLivre(inst.getOp());
-    //             if (estacao != null) {
-    //                 if (inst.podeEscrever() && !filaRegistradoresLivres.isEmpty()) {
-    //                     ReorderBufferSlot slot = rob.get(robTail);
-    //                     slot.setBusy(true);
-    //                     slot.setPronto(false);
-    //                     slot.setInstrucao(inst);
-    //                     slot.setEstado(EstadoInstrucao.PROCESSANDO);
-    //                     slot.setCicloIssue(cicloAtual);
-    //                     String regPublico = inst.getRd();
-    //                     verificaDependenciaVDD(inst, estacao);
-    //                     String regPrivado = filaRegistradoresLivres.poll();
-    //                     bancoPrivado.put(regPrivado, bancoRegistradores.get(regPublico));
-    //                     slot.setRegistradorRenomeado(regPrivado);
-    //                     slot.setRegistradorPublico(regPublico);
-    //                     estacao.setDest(regPrivado);
-    //                     mapaRenomeacao.put(inst.getRd(), regPrivado);
-    //                     int imediato = inst.getImediato();
-    //                     if (imediato != 0) {
-    //                         estacao.setImediato(imediato);
-    //                     }
-    //                     estacao.setBusy(true);
-    //                     estacao.setOp(inst.getOp());
-    //                     estacao.setCiclosRestantes(inst.getCiclosDuracao());
-    //                     robTail = (robTail + 1) % TAMANHO_ROB;
-    //                 } else {
-    //                     ReorderBufferSlot slot = rob.get(robTail);
-    //                     slot.setBusy(true);
-    //                     slot.setInstrucao(inst);
-    //                     slot.setPronto(false);
-    //                     slot.setEstado(EstadoInstrucao.PROCESSANDO);
-    //                     slot.setCicloIssue(cicloAtual);
-    //                     verificaDependenciaVDD(inst, estacao);
-    //                     int imediato = inst.getImediato();
-    //                     if (imediato != 0) {
-    //                         estacao.setImediato(imediato);
-    //                     }
-    //                     String regPrivado = filaRegistradoresLivres.poll();
-    //                     estacao.setDest(regPrivado);
-    //                     slot.setRegistradorRenomeado(regPrivado);
-    //                     estacao.setBusy(true);
-    //                     estacao.setOp(inst.getOp());
-    //                     estacao.setCiclosRestantes(inst.getCiclosDuracao());
-    //                     robTail = (robTail + 1) % TAMANHO_ROB;
-    //                 }
-    //                 pc++;
-    //                 if (inst.getEstadoExecucao() > 0) {
-    //                     inst.addExecucao();                        
-    //                 }
-    //                 inst.setEstadoExecucao(1); // lida
-    //             } else {
-    //                 logExecucao.add("Nenhuma estacao de reserva disponivel, não foi possivel emitir a instrucao: "
-    //                         + inst.toString());
-    //                 ciclosBolha++;
-    //             }
-    //         } else {
-    //             logExecucao.add("ROB cheio, não foi possivel emitir a instrucao: " + instrucoes.get(pc).toString());
-    //             ciclosBolha++;
-    //         }
-    //     }
-    // }
+/**
+ * Avança o estado de execução de uma instrucao (ignora saltos de mais de dois estados)
+ */
+private void marcarEstadoInstrucao(int indice, int estado) {
+    if (indice < 0 || estado > estadoInstrucoes[indice] + 2) {
+        return;
+    }
+    estadoInstrucoes[indice] = estado;
+}
 
     /*
      * @brief Essa funcao verifica se ha dependências de dados entre a instrucao
-     * atual e alguma instrucao ROB
-     * e devolve a posicao no ROB em que ha esse conflito.
+     * atual e alguma instrucao no ROB, consultando a tabela de renomeação,
+     * e configura os operandos da estacao de reserva.
      */
-    private void verificaDependenciaVDD(Instrucao inst, EstacaoDeReserva estacao) {
-        // System.out.println("Verificando dependência VDD para: " + reg1 + ", " +
-        // reg2);
+    private void verificaDependenciaVDD(int indice, EstacaoDeReserva estacao) {
         // Verifica se a instrucao depende de outra que ainda não foi completada
-        String reg1 = inst.getReg1();
-        String reg2 = inst.getReg2();
-        ReorderBufferSlot conflito1 = null, conflito2 = null;
-        for (int i = robHead; i != robTail; i = (i + 1) % TAMANHO_ROB) {
-            if (rob.get(i).isBusy()) {
-                String regPublico = rob.get(i).getRegistradorPublico();
-                if (regPublico != null && regPublico.equals(reg1)) {
-                    if (conflito1 != null) {
-                        if (conflito1.getCicloIssue() < rob.get(i).getCicloIssue()) {
-                            conflito1 = rob.get(i);
-                        }
-                    } else {
-                        conflito1 = rob.get(i);
-                    }
-                } else if (regPublico != null && regPublico.equals(reg2)) {
-                    if (conflito2 != null) {
-                        if (conflito2.getCicloIssue() < rob.get(i).getCicloIssue()) {
-                            conflito2 = rob.get(i);
-                        }
-                    } else {
-                        conflito2 = rob.get(i);
-                    }
+        int reg1 = programa.getFonte1(indice);
+        int reg2 = programa.getFonte2(indice);
+        if (reg1 >= 0) {
+            int regPrivado = mapaRenomeacao[reg1];
+            if (regPrivado >= 0) {
+                ReorderBufferSlot conflito1 = produtorPrivado[regPrivado];
+                log.registrar(TipoEvento.CONFLITO, cicloAtual, estacao.getIndice(), -1, pc, conflito1.getIndiceInstrucao(), reg1, 0.0f);
+                if (conflito1.isPronto()) {
+                    estacao.setVj(bancoPrivado[regPrivado]);
+                } else {
+                    estacao.setQj(regPrivado);
+                    listasDeEspera.registrar(regPrivado, estacao.getIndice(), ListasDeEspera.OPERANDO_J);
                 }
-            }
-        }
-        if (conflito1 != null) {
-            logExecucao.add("Conflito verdadeiro: " + "instrucao " + inst.toString() + " em conflito com " + conflito1.getInstrucao().toString() + " em " + reg1);
-            if (conflito1.isPronto()) {
-                estacao.setVj(bancoPrivado.get(conflito1.getRegistradorRenomeado()));
             } else {
-                estacao.setQj(conflito1.getRegistradorRenomeado());
+                estacao.setVj(bancoRegistradores[reg1]);
             }
-        } else {
-            estacao.setVj(bancoRegistradores.get(reg1));
         }
-        if (conflito2 != null) {
-            logExecucao.add("Conflito verdadeiro: " + "instrucao " + inst.toString() + " em conflito com " + conflito2.getInstrucao().toString() + " em " + reg2);
-            if (conflito2.isPronto()) {
-                estacao.setVk(bancoPrivado.get(conflito2.getRegistradorRenomeado()));
+        if (reg2 >= 0) {
+            int regPrivado = mapaRenomeacao[reg2];
+            if (regPrivado >= 0) {
+                ReorderBufferSlot conflito2 = produtorPrivado[regPrivado];
+                log.registrar(TipoEvento.CONFLITO, cicloAtual, estacao.getIndice(), -1, pc, conflito2.getIndiceInstrucao(), reg2, 0.0f);
+                if (conflito2.isPronto()) {
+                    estacao.setVk(bancoPrivado[regPrivado]);
+                } else {
+                    estacao.setQk(regPrivado);
+                    listasDeEspera.registrar(regPrivado, estacao.getIndice(), ListasDeEspera.OPERANDO_K);
+                }
             } else {
-                estacao.setQk(conflito2.getRegistradorRenomeado());
+                estacao.setVk(bancoRegistradores[reg2]);
             }
-        } else {
-            estacao.setVk(bancoRegistradores.get(reg2));
         }
     }
 
@@ -646,21 +987,22 @@ private void atualizarEstadoInstrucao(Instrucao inst) {
      * Encontra uma estacao de reserva livre para a operacao
      */
     private EstacaoDeReserva encontrarEstacaoLivre(OpCode op) {
-        List<EstacaoDeReserva> estacoes;
+        List<EstacaoDeReserva> grupo;
 
         // System.out.println("Encontrando estacao livre para a operacao: " + op);
 
         if (op.isMemoryOperation()) {
-            estacoes = estacoesLoad;
+            grupo = estacoesLoad;
         } else if (op.isMultiplyDivide()) {
-            estacoes = estacoesMul;
+            grupo = estacoesMul;
         } else if (op.isBranch()) {
-            estacoes = estacoesBranches;
+            grupo = estacoesBranches;
         } else {
-            estacoes = estacoesAdd;
+            grupo = estacoesAdd;
         }
 
-        for (EstacaoDeReserva estacao : estacoes) {
+        for (int i = 0; i < grupo.size(); i++) {
+            EstacaoDeReserva estacao = grupo.get(i);
             // System.out.println("Verificando estacao: " + estacao.getNome() + " - Busy: "
             // + estacao.isBusy());
             if (!estacao.isBusy()) {
@@ -681,32 +1023,61 @@ private void atualizarEstadoInstrucao(Instrucao inst) {
  * Garante que as instruções sejam cometidas na ordem original do programa
  */
 private void commit() {
-    ReorderBufferSlot slot = rob.get(robHead);
-    
-    // Verifica se o slot está pronto para commit
-    if (!podeFazerCommit(slot)) {
-        return;
+    // Retira ate larguraCommit slots prontos consecutivos a partir da cabeça
+    for (int commitadas = 0; commitadas < configuracao.getLarguraCommit(); commitadas++) {
+        ReorderBufferSlot slot = rob.get(robHead);
+        if (!podeFazerCommit(slot)) {
+            return;
+        }
+        commitarSlot(slot);
     }
-    
-    Instrucao instrucao = slot.getInstrucao();
+}
+
+/**
+ * Faz o commit do slot da cabeça do ROB
+ */
+private void commitarSlot(ReorderBufferSlot slot) {
     slot.setCicloCommit(cicloAtual);
+    cicloUltimoCommit = cicloAtual;
     
     // Atualiza estado da instrução
-    if (instrucao != null) {
-        instrucao.setEstadoExecucao(4); // marcada como commitada
-    }
+    marcarEstadoInstrucao(slot.getIndiceInstrucao(), 4); // marcada como commitada
     
+    if (slot.getIndiceInstrucao() >= 0 && programa.getOp(slot.getIndiceInstrucao()).isBranch()) {
+        commitarDesvio(slot);
+    }
+    if (slot.getIndiceInstrucao() >= 0 && programa.getOp(slot.getIndiceInstrucao()) == OpCode.STORE) {
+        escreverMemoria(slot.getEndereco(), slot.getResultado());
+    }
+
     // Processa commit baseado no tipo de instrução
-    if (instrucaoPodeEscreverRegistrador(instrucao, slot)) {
-        commitarInstrucaoComEscrita(instrucao, slot);
+    if (instrucaoPodeEscreverRegistrador(slot)) {
+        commitarInstrucaoComEscrita(slot);
     } else {
-        commitarInstrucaoSemEscrita(instrucao, slot);
+        commitarInstrucaoSemEscrita(slot);
     }
     
     // Limpa o slot e avança a cabeça do ROB
     finalizarCommit(slot);
 }
 
+/**
+ * Treina o preditor e o BTB com um desvio que sai do ROB e atualiza as estatisticas de predição
+ */
+private void commitarDesvio(ReorderBufferSlot slot) {
+    int indice = slot.getIndiceInstrucao();
+    boolean tomado = slot.getResultado() == 1;
+    preditor.treinar(indice, slot.getHistoricoPrevisao(), tomado);
+    if (tomado) {
+        btb.atualizar(indice, programa.getImediato(indice) - 1);
+    }
+    desviosCommitados++;
+    if (slot.isPrevisaoErrada()) {
+        desviosPrevistosErrado++;
+        ciclosPenalidadeDesvio += slot.getCicloEscrita() - slot.getCicloIssue();
+    }
+}
+
 /**
  * Verifica se um slot do ROB está pronto para commit
  */
@@ -719,96 +1090,67 @@ private boolean podeFazerCommit(ReorderBufferSlot slot) {
 /**
  * Verifica se a instrução escreve em registrador e tem dados necessários
  */
-private boolean instrucaoPodeEscreverRegistrador(Instrucao instrucao, ReorderBufferSlot slot) {
-    return instrucao != null &&
-           instrucao.podeEscrever() && 
-           slot.getRegistradorPublico() != null &&
-           slot.getResultado() != null;
+private boolean instrucaoPodeEscreverRegistrador(ReorderBufferSlot slot) {
+    return slot.getIndiceInstrucao() >= 0 &&
+           programa.podeEscrever(slot.getIndiceInstrucao()) && 
+           slot.getRegistradorPublico() >= 0;
 }
 
 /**
  * Processa commit de instruções que escrevem em registradores
  */
-private void commitarInstrucaoComEscrita(Instrucao instrucao, ReorderBufferSlot slot) {
-    String registradorPublico = slot.getRegistradorPublico();
-    String registradorPrivado = slot.getRegistradorRenomeado();
-    Float resultado = slot.getResultado();
+private void commitarInstrucaoComEscrita(ReorderBufferSlot slot) {
+    int registradorPublico = slot.getRegistradorPublico();
+    int registradorPrivado = slot.getRegistradorRenomeado();
+    float resultado = slot.getResultado();
     
     // Atualiza o valor no banco público de registradores
-    bancoRegistradores.put(registradorPublico, resultado);
-    
-    // Libera o registrador privado para reutilização
-    filaRegistradoresLivres.offer(registradorPrivado);
+    bancoRegistradores[registradorPublico] = resultado;
     
-    // Remove o mapeamento do registrador público
-    mapaRenomeacao.remove(registradorPublico);
+    // Remove o mapeamento do registrador público, se nenhuma instrução mais nova o renomeou
+    if (mapaRenomeacao[registradorPublico] == registradorPrivado) {
+        mapaRenomeacao[registradorPublico] = -1;
+    }
     
     // Log do commit
-    logExecucao.add("Commit: " + instrucao + " -> " + registradorPublico + " = " + resultado);
+    log.registrar(TipoEvento.COMMIT, cicloAtual, -1, slot.getIndice(), slot.getIndiceInstrucao(), registradorPublico, -1, resultado);
 }
 
 /**
  * Processa commit de instruções que não escrevem em registradores
  */
-private void commitarInstrucaoSemEscrita(Instrucao instrucao, ReorderBufferSlot slot) {
+private void commitarInstrucaoSemEscrita(ReorderBufferSlot slot) {
     // Apenas registra o commit no log
-    logExecucao.add("Commit: " + instrucao);
+    log.registrar(TipoEvento.COMMIT, cicloAtual, -1, slot.getIndice(), slot.getIndiceInstrucao(), -1, -1, 0.0f);
 }
 
 /**
  * Finaliza o processo de commit limpando o slot e atualizando estatísticas
  */
 private void finalizarCommit(ReorderBufferSlot slot) {
+    // Libera o registrador privado para reutilização
+    int registradorPrivado = slot.getRegistradorRenomeado();
+    if (registradorPrivado >= 0) {
+        produtorPrivado[registradorPrivado] = null;
+        liberarRegistradorPrivado(registradorPrivado);
+    }
+
     // Limpa o slot do ROB
     slot.limpar();
     
     // Avança a cabeça do ROB de forma circular
-    robHead = (robHead + 1) % TAMANHO_ROB;
+    robHead = (robHead + 1) % configuracao.getTamanhoROB();
     
     // Atualiza estatísticas
     instrucoesExecutadas++;
 }
-    // private void commit() {
-
-    //     ReorderBufferSlot slot = rob.get(robHead);
-
-    //     if (slot.isBusy() && slot.isPronto() && slot.getCicloCommit() != cicloAtual) {
-    //         Instrucao inst = slot.getInstrucao();
-    //         slot.setCicloCommit(cicloAtual);
-    //         if (inst != null) inst.setEstadoExecucao(4); // commitada
-    //         // Atualiza banco publico se a instrucao escreve em registrador
-    //         if (inst.podeEscrever() && slot.getRegistradorPublico() != null) {
-    //             String regPub = slot.getRegistradorPublico();
-    //             // String regPrivAntigo = mapaRenomeacao.get(regPub);
-    //             String regPriv = slot.getRegistradorRenomeado();
-
-    //             // Atualiza o valor no banco publico
-    //             bancoRegistradores.put(regPub, slot.getResultado());
-    //             filaRegistradoresLivres.offer(regPriv);
-    //             mapaRenomeacao.remove(regPub);
-    //             logExecucao.add("Commit: " + inst + " -> " + regPub + " = " + slot.getResultado());
-    //         } else {
-    //             logExecucao.add("Commit: " + inst);
-    //         }
-
-    //         slot.limpar();
-    //         robHead = (robHead + 1) % TAMANHO_ROB;
-    //         instrucoesExecutadas++;
-    //     }
-
-    // }
 
     /**
      * Verifica se o ROB esta vazio
      */
     private boolean robVazio() {
-        boolean resultado = true;
-        for (ReorderBufferSlot slot : rob) {
-            if (slot.isBusy()) {
-                resultado = false;
-            }
-        }
-        return resultado;
+        // Cabeça e cauda só coincidem com o ROB vazio ou cheio
+        return robHead == robTail && !rob.get(robHead).isBusy();
     }
 
     // Funcoes Requisitadas pela GUI
@@ -817,14 +1159,9 @@ private void finalizarCommit(ReorderBufferSlot slot) {
      * Executa a simulacao completa
      */
     public void executarCompleto() {
+        // Termina sempre: o watchdog (e o limite de ciclos, se configurado) interrompe em proximoCiclo()
         while (!simulacaoCompleta) {
-            proximoCiclo();
-
-            // Protecao contra loop infinito
-            if (cicloAtual > 10000) {
-                System.err.println("Simulacao interrompida: muitos ciclos");
-                break;
-            }
+            proximoCiclo(avancoRapido);
         }
     }
 
@@ -832,10 +1169,298 @@ private void finalizarCommit(ReorderBufferSlot slot) {
      * Carrega instrucoes de um arquivo
      */
     public void carregarInstrucoes(String nomeArquivo) throws IOException {
+        Programa lido = InstructionParser.lerPrograma(nomeArquivo);
+        int invalida = encontrarRegistradorForaDoBanco(lido);
+        if (invalida >= 0) {
+            throw new IOException("Registrador fora do intervalo R0-R" + (configuracao.getNumRegistradoresPublicos() - 1) + ": " + lido.getTexto(invalida));
+        }
+        usarPrograma(lido, nomeArquivo);
+    }
+
+    /**
+     * Carrega instrucoes já parseadas (ex: programas gerados)
+     */
+    public void carregarInstrucoes(List<Instrucao> instrucoes) {
+        carregarPrograma(Programa.de(instrucoes));
+    }
+
+    /**
+     * Carrega um programa já parseado (ex: compartilhado entre execuções, sem copia)
+     */
+    public void carregarPrograma(Programa programa) {
+        int invalida = encontrarRegistradorForaDoBanco(programa);
+        if (invalida >= 0) {
+            throw new IllegalArgumentException("Registrador fora do intervalo R0-R" + (configuracao.getNumRegistradoresPublicos() - 1) + ": " + programa.getTexto(invalida));
+        }
+        usarPrograma(programa, null);
+    }
+
+    private void usarPrograma(Programa novo, String origem) {
+        programa = novo;
+        estadoInstrucoes = new int[programa.tamanho()];
+        execucoesInstrucoes = new int[programa.tamanho()];
         reiniciar();
-        instrucoes = InstructionParser.lerInstrucoes(nomeArquivo);
-        pc = 0;
-        logExecucao.add("Carregadas " + instrucoes.size() + " instrucoes do arquivo: " + nomeArquivo);
+        log.setPrograma(programa, origem);
+        log.registrar(TipoEvento.CARREGAMENTO, cicloAtual, -1, -1, -1, programa.tamanho(), -1, 0.0f);
+    }
+
+    /**
+     * Retorna a posição da primeira instrucao que usa um registrador fora do banco publico, ou -1
+     */
+    private int encontrarRegistradorForaDoBanco(Programa programa) {
+        int limite = configuracao.getNumRegistradoresPublicos();
+        if (programa.getMaiorRegistrador() < limite) {
+            return -1;
+        }
+        for (int i = 0; i < programa.tamanho(); i++) {
+            if (programa.getDestino(i) >= limite || programa.getFonte1(i) >= limite || programa.getFonte2(i) >= limite) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tira uma copia imutavel do estado atual da simulação.
+     * A memoria não é copiada: suas paginas passam a ser compartilhadas com a copia.
+     */
+    public EstadoSimulador capturarEstado() {
+        EstadoSimulador estado = new EstadoSimulador();
+        estado.configuracao = configuracao;
+        estado.programa = programa;
+
+        estado.estadoInstrucoes = estadoInstrucoes.clone();
+        estado.execucoesInstrucoes = execucoesInstrucoes.clone();
+
+        estado.bancoRegistradores = bancoRegistradores.clone();
+        estado.bancoPrivado = bancoPrivado.clone();
+        estado.mapaRenomeacao = mapaRenomeacao.clone();
+        estado.produtorPrivado = new int[produtorPrivado.length];
+        for (int i = 0; i < produtorPrivado.length; i++) {
+            estado.produtorPrivado[i] = produtorPrivado[i] != null ? produtorPrivado[i].getIndice() : -1;
+        }
+        estado.filaRegistradoresLivres = filaRegistradoresLivres.clone();
+        estado.inicioFilaLivres = inicioFilaLivres;
+        estado.qtdeRegistradoresLivres = qtdeRegistradoresLivres;
+
+        int tamanhoROB = rob.size();
+        estado.robHead = robHead;
+        estado.robTail = robTail;
+        estado.slotBusy = new boolean[tamanhoROB];
+        estado.slotIndiceInstrucao = new int[tamanhoROB];
+        estado.slotEstado = new EstadoInstrucao[tamanhoROB];
+        estado.slotRegistradorPublico = new int[tamanhoROB];
+        estado.slotRegistradorRenomeado = new int[tamanhoROB];
+        estado.slotMapeamentoAnterior = new int[tamanhoROB];
+        estado.slotResultado = new float[tamanhoROB];
+        estado.slotPronto = new boolean[tamanhoROB];
+        estado.slotCicloIssue = new int[tamanhoROB];
+        estado.slotCicloExecucao = new int[tamanhoROB];
+        estado.slotCicloEscrita = new int[tamanhoROB];
+        estado.slotCicloCommit = new int[tamanhoROB];
+        estado.slotProximoPrevisto = new int[tamanhoROB];
+        estado.slotHistoricoPrevisao = new int[tamanhoROB];
+        estado.slotPrevisaoErrada = new boolean[tamanhoROB];
+        estado.slotEndereco = new int[tamanhoROB];
+        for (int i = 0; i < tamanhoROB; i++) {
+            ReorderBufferSlot slot = rob.get(i);
+            estado.slotBusy[i] = slot.isBusy();
+            estado.slotIndiceInstrucao[i] = slot.getIndiceInstrucao();
+            estado.slotEstado[i] = slot.getEstado();
+            estado.slotRegistradorPublico[i] = slot.getRegistradorPublico();
+            estado.slotRegistradorRenomeado[i] = slot.getRegistradorRenomeado();
+            estado.slotMapeamentoAnterior[i] = slot.getMapeamentoAnterior();
+            estado.slotResultado[i] = slot.getResultado();
+            estado.slotPronto[i] = slot.isPronto();
+            estado.slotCicloIssue[i] = slot.getCicloIssue();
+            estado.slotCicloExecucao[i] = slot.getCicloExecucao();
+            estado.slotCicloEscrita[i] = slot.getCicloEscrita();
+            estado.slotCicloCommit[i] = slot.getCicloCommit();
+            estado.slotProximoPrevisto[i] = slot.getProximoPrevisto();
+            estado.slotHistoricoPrevisao[i] = slot.getHistoricoPrevisao();
+            estado.slotPrevisaoErrada[i] = slot.isPrevisaoErrada();
+            estado.slotEndereco[i] = slot.getEndereco();
+        }
+
+        estado.estacaoBusy = new boolean[estacoes.length];
+        estado.estacaoOp = new OpCode[estacoes.length];
+        estado.estacaoVj = new float[estacoes.length];
+        estado.estacaoVk = new float[estacoes.length];
+        estado.estacaoQj = new int[estacoes.length];
+        estado.estacaoQk = new int[estacoes.length];
+        estado.estacaoDest = new int[estacoes.length];
+        estado.estacaoImediato = new int[estacoes.length];
+        estado.estacaoCiclosRestantes = new int[estacoes.length];
+        estado.estacaoSlot = new int[estacoes.length];
+        estado.estacaoUnidade = new int[estacoes.length];
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
+            estado.estacaoBusy[i] = estacao.isBusy();
+            estado.estacaoOp[i] = estacao.getOp();
+            estado.estacaoVj[i] = estacao.getVj();
+            estado.estacaoVk[i] = estacao.getVk();
+            estado.estacaoQj[i] = estacao.getQj();
+            estado.estacaoQk[i] = estacao.getQk();
+            estado.estacaoDest[i] = estacao.getDest();
+            estado.estacaoImediato[i] = estacao.getImediato();
+            estado.estacaoCiclosRestantes[i] = estacao.getCiclosRestantes();
+            estado.estacaoSlot[i] = estacao.getSlotROB() != null ? estacao.getSlotROB().getIndice() : -1;
+            estado.estacaoUnidade[i] = -1;
+            UnidadeFuncional unidade = estacao.getUnidade();
+            if (unidade != null) {
+                UnidadeFuncional[] doTipo = unidades[unidade.getTipo().ordinal()];
+                for (int u = 0; u < doTipo.length; u++) {
+                    if (doTipo[u] == unidade) {
+                        estado.estacaoUnidade[i] = u;
+                    }
+                }
+            }
+        }
+
+        estado.proximaAceitacao = new int[unidades.length][];
+        for (int t = 0; t < unidades.length; t++) {
+            estado.proximaAceitacao[t] = new int[unidades[t].length];
+            for (int u = 0; u < unidades[t].length; u++) {
+                estado.proximaAceitacao[t][u] = unidades[t][u].getProximaAceitacao();
+            }
+        }
+
+        estado.memoria = memoria.capturar();
+        estado.cacheL1 = cacheL1 != null ? cacheL1.capturar() : null;
+        estado.cacheL2 = cacheL2 != null ? cacheL2.capturar() : null;
+        estado.contadoresPreditor = preditor.getContadores();
+        estado.historicoPreditor = preditor.getHistorico();
+        estado.tagsBTB = btb.getTags();
+        estado.alvosBTB = btb.getAlvos();
+
+        estado.pc = pc;
+        estado.cicloAtual = cicloAtual;
+        estado.totalCiclos = totalCiclos;
+        estado.ciclosBolha = ciclosBolha;
+        estado.simulacaoCompleta = simulacaoCompleta;
+        estado.simulacaoInterrompida = simulacaoInterrompida;
+        estado.cicloUltimoCommit = cicloUltimoCommit;
+        estado.instrucoesExecutadas = instrucoesExecutadas;
+        estado.desviosCommitados = desviosCommitados;
+        estado.desviosPrevistosErrado = desviosPrevistosErrado;
+        estado.ciclosPenalidadeDesvio = ciclosPenalidadeDesvio;
+        estado.cargasEncaminhadas = cargasEncaminhadas;
+        estado.ciclosEsperaMemoria = ciclosEsperaMemoria;
+        estado.eventosLog = log.getTotalRegistrados();
+        return estado;
+    }
+
+    /**
+     * Volta a simulação para um estado capturado antes com o mesmo programa e configuração.
+     * Os eventos do log registrados depois da captura são descartados, e os eventos que
+     * o buffer circular já sobrescreveu não voltam.
+     */
+    public void restaurarEstado(EstadoSimulador estado) {
+        if (!estado.configuracao.equals(configuracao)) {
+            throw new IllegalArgumentException("Estado capturado com outra configuração: " + estado.configuracao);
+        }
+        if (estado.programa != programa) {
+            throw new IllegalArgumentException("Estado capturado com outro programa carregado");
+        }
+
+        System.arraycopy(estado.estadoInstrucoes, 0, estadoInstrucoes, 0, estadoInstrucoes.length);
+        System.arraycopy(estado.execucoesInstrucoes, 0, execucoesInstrucoes, 0, execucoesInstrucoes.length);
+
+        System.arraycopy(estado.bancoRegistradores, 0, bancoRegistradores, 0, bancoRegistradores.length);
+        System.arraycopy(estado.bancoPrivado, 0, bancoPrivado, 0, bancoPrivado.length);
+        System.arraycopy(estado.mapaRenomeacao, 0, mapaRenomeacao, 0, mapaRenomeacao.length);
+        for (int i = 0; i < produtorPrivado.length; i++) {
+            produtorPrivado[i] = estado.produtorPrivado[i] >= 0 ? rob.get(estado.produtorPrivado[i]) : null;
+        }
+        System.arraycopy(estado.filaRegistradoresLivres, 0, filaRegistradoresLivres, 0, filaRegistradoresLivres.length);
+        inicioFilaLivres = estado.inicioFilaLivres;
+        qtdeRegistradoresLivres = estado.qtdeRegistradoresLivres;
+
+        robHead = estado.robHead;
+        robTail = estado.robTail;
+        for (int i = 0; i < rob.size(); i++) {
+            ReorderBufferSlot slot = rob.get(i);
+            slot.limpar();
+            slot.setBusy(estado.slotBusy[i]);
+            slot.setIndiceInstrucao(estado.slotIndiceInstrucao[i]);
+            slot.setEstado(estado.slotEstado[i]);
+            slot.setRegistradorPublico(estado.slotRegistradorPublico[i]);
+            slot.setRegistradorRenomeado(estado.slotRegistradorRenomeado[i]);
+            slot.setMapeamentoAnterior(estado.slotMapeamentoAnterior[i]);
+            slot.setResultado(estado.slotResultado[i]);
+            slot.setPronto(estado.slotPronto[i]);
+            slot.setCicloIssue(estado.slotCicloIssue[i]);
+            slot.setCicloExecucao(estado.slotCicloExecucao[i]);
+            slot.setCicloEscrita(estado.slotCicloEscrita[i]);
+            slot.setCicloCommit(estado.slotCicloCommit[i]);
+            slot.setProximoPrevisto(estado.slotProximoPrevisto[i]);
+            slot.setHistoricoPrevisao(estado.slotHistoricoPrevisao[i]);
+            slot.setPrevisaoErrada(estado.slotPrevisaoErrada[i]);
+            slot.setEndereco(estado.slotEndereco[i]);
+        }
+
+        // As listas de espera e o mapa slot -> estacao são refeitos a partir das estacoes
+        listasDeEspera.limpar();
+        Arrays.fill(estacaoDoSlot, null);
+        for (int i = 0; i < estacoes.length; i++) {
+            EstacaoDeReserva estacao = estacoes[i];
+            estacao.limpar();
+            estacao.setBusy(estado.estacaoBusy[i]);
+            estacao.setOp(estado.estacaoOp[i]);
+            estacao.setVj(estado.estacaoVj[i]);
+            estacao.setVk(estado.estacaoVk[i]);
+            estacao.setQj(estado.estacaoQj[i]);
+            estacao.setQk(estado.estacaoQk[i]);
+            estacao.setDest(estado.estacaoDest[i]);
+            estacao.setImediato(estado.estacaoImediato[i]);
+            estacao.setCiclosRestantes(estado.estacaoCiclosRestantes[i]);
+            if (estado.estacaoSlot[i] >= 0) {
+                estacao.setSlotROB(rob.get(estado.estacaoSlot[i]));
+                if (estacao.isBusy()) {
+                    estacaoDoSlot[estado.estacaoSlot[i]] = estacao;
+                }
+            }
+            if (estado.estacaoUnidade[i] >= 0) {
+                estacao.setUnidade(unidades[TipoUnidadeFuncional.de(estacao.getOp()).ordinal()][estado.estacaoUnidade[i]]);
+            }
+            if (estacao.isBusy() && estacao.getQj() >= 0) {
+                listasDeEspera.registrar(estacao.getQj(), i, ListasDeEspera.OPERANDO_J);
+            }
+            if (estacao.isBusy() && estacao.getQk() >= 0) {
+                listasDeEspera.registrar(estacao.getQk(), i, ListasDeEspera.OPERANDO_K);
+            }
+        }
+
+        for (int t = 0; t < unidades.length; t++) {
+            for (int u = 0; u < unidades[t].length; u++) {
+                unidades[t][u].setProximaAceitacao(estado.proximaAceitacao[t][u]);
+            }
+        }
+
+        memoria.restaurar(estado.memoria);
+        if (cacheL1 != null) {
+            cacheL1.restaurar(estado.cacheL1);
+        }
+        if (cacheL2 != null) {
+            cacheL2.restaurar(estado.cacheL2);
+        }
+        preditor.restaurar(estado.contadoresPreditor, estado.historicoPreditor);
+        btb.restaurar(estado.tagsBTB, estado.alvosBTB);
+
+        pc = estado.pc;
+        cicloAtual = estado.cicloAtual;
+        totalCiclos = estado.totalCiclos;
+        ciclosBolha = estado.ciclosBolha;
+        simulacaoCompleta = estado.simulacaoCompleta;
+        simulacaoInterrompida = estado.simulacaoInterrompida;
+        cicloUltimoCommit = estado.cicloUltimoCommit;
+        instrucoesExecutadas = estado.instrucoesExecutadas;
+        desviosCommitados = estado.desviosCommitados;
+        desviosPrevistosErrado = estado.desviosPrevistosErrado;
+        ciclosPenalidadeDesvio = estado.ciclosPenalidadeDesvio;
+        cargasEncaminhadas = estado.cargasEncaminhadas;
+        ciclosEsperaMemoria = estado.ciclosEsperaMemoria;
+        log.truncar(estado.eventosLog);
     }
 
     /**
@@ -878,14 +1503,53 @@ private void finalizarCommit(ReorderBufferSlot slot) {
 //passo 31
         Map<String, Object> status = new HashMap<>();
 //passo 32
-        status.put("publico", new HashMap<>(bancoRegistradores));
-        status.put("fisico", new HashMap<>(bancoPrivado));
-        status.put("mapeamento", new HashMap<>(mapaRenomeacao));
-        status.put("livres", new ArrayList<>(filaRegistradoresLivres));
+        Map<String, Float> publico = new LinkedHashMap<>();
+        Map<String, String> mapeamento = new LinkedHashMap<>();
+        for (int i = 0; i < bancoRegistradores.length; i++) {
+            publico.put(nomeRegistradorPublico(i), bancoRegistradores[i]);
+            if (mapaRenomeacao[i] >= 0) {
+                mapeamento.put(nomeRegistradorPublico(i), nomeRegistradorPrivado(mapaRenomeacao[i]));
+            }
+        }
+        Map<String, Float> fisico = new LinkedHashMap<>();
+        for (int i = 0; i < bancoPrivado.length; i++) {
+            fisico.put(nomeRegistradorPrivado(i), bancoPrivado[i]);
+        }
+        List<String> livres = new ArrayList<>(qtdeRegistradoresLivres);
+        for (int i = 0; i < qtdeRegistradoresLivres; i++) {
+            livres.add(nomeRegistradorPrivado(filaRegistradoresLivres[(inicioFilaLivres + i) % filaRegistradoresLivres.length]));
+        }
+        status.put("publico", publico);
+        status.put("fisico", fisico);
+        status.put("mapeamento", mapeamento);
+        status.put("livres", livres);
 //passo 33
         return status;
     }
 
+    /*
+     * Acesso direto aos bancos de registradores, sem montar mapas
+     */
+    public int getNumRegistradoresPublicos() {
+        return bancoRegistradores.length;
+    }
+
+    public float getValorRegistrador(int regPublico) {
+        return bancoRegistradores[regPublico];
+    }
+
+    public int getMapeamento(int regPublico) {
+        return mapaRenomeacao[regPublico];
+    }
+
+    public static String nomeRegistradorPublico(int indice) {
+        return "R" + indice;
+    }
+
+    public static String nomeRegistradorPrivado(int indice) {
+        return "P" + indice;
+    }
+
     // Getters para estatisticas
     public int getCicloAtual() {
 //passo 38
@@ -904,17 +1568,141 @@ private void finalizarCommit(ReorderBufferSlot slot) {
         return simulacaoCompleta;
     }
 
+    /**
+     * Simulação encerrada pelo watchdog ou pelo limite de ciclos antes do fim do programa
+     */
+    public boolean isSimulacaoInterrompida() {
+        return simulacaoInterrompida;
+    }
+
     public int getInstrucoesExecutadas() {
         return instrucoesExecutadas;
     }
 
+    /**
+     * Desvios commitados (os do caminho errado não contam)
+     */
+    public int getDesvios() {
+        return desviosCommitados;
+    }
+
+    public int getDesviosPrevistosErrado() {
+        return desviosPrevistosErrado;
+    }
+
+    /**
+     * Ciclos perdidos com previsões erradas: da emissão de cada desvio previsto errado até a sua resolução
+     */
+    public int getCiclosPenalidadeDesvio() {
+        return ciclosPenalidadeDesvio;
+    }
+
+    /**
+     * LOADs que receberam o valor de um STORE anterior ainda no ROB, sem acessar caches nem memoria
+     */
+    public int getCargasEncaminhadas() {
+        return cargasEncaminhadas;
+    }
+
+    /**
+     * Ciclos em que LOADs prontos aguardaram um STORE anterior com endereço desconhecido
+     * ou com o mesmo endereço e valor ainda não calculado (somados por LOAD)
+     */
+    public int getCiclosEsperaMemoria() {
+        return ciclosEsperaMemoria;
+    }
+
+    /**
+     * Cache de dados L1 (acertos e falhas), ou null se a configuração não tem caches
+     */
+    public CacheDados getCacheL1() {
+        return cacheL1;
+    }
+
+    /**
+     * Cache de dados L2, ou null se a configuração não tem L2
+     */
+    public CacheDados getCacheL2() {
+        return cacheL2;
+    }
+
+    /**
+     * Fração dos desvios commitados cujo caminho foi previsto certo (1 se não houve desvios)
+     */
+    public double calcularPrecisaoPredicao() {
+        if (desviosCommitados == 0)
+            return 1.0;
+        return (double) (desviosCommitados - desviosPrevistosErrado) / desviosCommitados;
+    }
+
+    /**
+     * Instrucoes do programa carregado (criadas quando pedidas, ver getPrograma())
+     */
     public List<Instrucao> getInstrucoes() {
-        return instrucoes;
+        return programa.comoLista();
+    }
+
+    public Programa getPrograma() {
+        return programa;
+    }
+
+    /**
+     * Estado de execução da instrucao: 0 nenhum, 1 emitida, 2 executada, 3 resultado escrito, 4 commitada
+     */
+    public int getEstadoInstrucao(int indice) {
+        return estadoInstrucoes[indice];
     }
 
+    /**
+     * Quantas vezes a instrucao foi emitida de novo (ex: dentro de um laço)
+     */
+    public int getExecucoesInstrucao(int indice) {
+        return execucoesInstrucoes[indice];
+    }
+
+    /**
+     * Define quais eventos são registrados no log (o padrão é RESUMO; quem quer os eventos
+     * de cada ciclo, como a interface grafica, pede RASTREAMENTO).
+     * Com DESLIGADO o laço de simulação não registra nem formata nada.
+     */
+    public void setNivelLog(NivelLog nivel) {
+        log.setNivel(nivel);
+    }
+
+    public NivelLog getNivelLog() {
+        return log.getNivel();
+    }
+
+    /**
+     * Liga ou desliga o salto dos ciclos ociosos em executarCompleto().
+     * As estatisticas são as mesmas de executar ciclo a ciclo; o salto só acontece
+     * com o nivel de log abaixo de RASTREAMENTO.
+     */
+    public void setAvancoRapido(boolean avancoRapido) {
+        this.avancoRapido = avancoRapido;
+    }
+
+    public boolean isAvancoRapido() {
+        return avancoRapido;
+    }
+
+    /**
+     * Log estruturado da execução
+     */
+    public LogEventos getLog() {
+        return log;
+    }
+
+    /**
+     * Eventos guardados no log como texto, formatados apenas quando lidos
+     */
     public List<String> getLogExecucao() {
 //passo 46
-        return logExecucao;
+        return log.comoTexto();
+    }
+
+    public ConfiguracaoSimulador getConfiguracao() {
+        return configuracao;
     }
 
     public int getPc() {
@@ -922,7 +1710,7 @@ private void finalizarCommit(ReorderBufferSlot slot) {
     }
 
     public int getTotalInstrucoes() {
-        return instrucoes.size();
+        return programa.tamanho();
     }
 
 }
@@ -0,0 +1,36 @@
+package simulador;
+
+/**
+ * Enum que representa os tipos de evento registrados no log de execução,
+ * com o nivel de log a partir do qual cada um é registrado
+ */
+public enum TipoEvento {
+    CARREGAMENTO(NivelLog.RESUMO),
+    CICLO(NivelLog.RASTREAMENTO),
+    SEPARADOR(NivelLog.RASTREAMENTO),
+    LIMITE_CICLOS(NivelLog.RESUMO),
+    WATCHDOG(NivelLog.RESUMO),
+    ESTACAO_BLOQUEADA(NivelLog.RESUMO),
+    SIMULACAO_INTERROMPIDA(NivelLog.RESUMO),
+    FIM_SIMULACAO(NivelLog.RESUMO),
+    CONFLITO(NivelLog.RASTREAMENTO),
+    BOLHA_OPERANDOS(NivelLog.RASTREAMENTO),
+    BOLHA_UNIDADE(NivelLog.RASTREAMENTO),
+    BOLHA_MEMORIA(NivelLog.RASTREAMENTO),
+    ROB_CHEIO(NivelLog.RASTREAMENTO),
+    SEM_ESTACAO(NivelLog.RASTREAMENTO),
+    SEM_REGISTRADOR(NivelLog.RASTREAMENTO),
+    CANCELAMENTO(NivelLog.RASTREAMENTO),
+    ESCRITA_FORA_MEMORIA(NivelLog.RASTREAMENTO),
+    COMMIT(NivelLog.RASTREAMENTO);
+
+    private final NivelLog nivel;
+
+    TipoEvento(NivelLog nivel) {
+        this.nivel = nivel;
+    }
+
+    public NivelLog getNivel() {
+        return nivel;
+    }
+}
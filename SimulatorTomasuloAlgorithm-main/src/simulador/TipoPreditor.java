@@ -0,0 +1,33 @@
+package simulador;
+
+/**
+ * Enum que representa os preditores de desvio disponiveis
+ */
+public enum TipoPreditor {
+    NAO_TOMADO("NaoTomado"),  // estatico: sempre segue para a instrução seguinte
+    TOMADO("Tomado"),         // estatico: sempre tomado, quando o BTB conhece o alvo
+    BIMODAL("Bimodal"),       // contadores de 2 bits indexados pelo endereço do desvio
+    GSHARE("Gshare");         // contadores de 2 bits indexados pelo endereço XOR historico global
+
+    private final String nome;
+
+    TipoPreditor(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Procura o preditor pelo nome (sem diferenciar maiusculas), ex: "gshare"
+     */
+    public static TipoPreditor fromString(String nome) {
+        for (TipoPreditor tipo : values()) {
+            if (tipo.nome.equalsIgnoreCase(nome) || tipo.name().equalsIgnoreCase(nome)) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Preditor desconhecido: " + nome);
+    }
+}
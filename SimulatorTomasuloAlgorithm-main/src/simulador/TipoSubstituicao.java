@@ -0,0 +1,28 @@
+package simulador;
+
+/**
+ * Enum que representa as politicas de substituição das linhas de uma cache
+ */
+public enum TipoSubstituicao {
+    LRU("LRU"),    // sai a via usada há mais tempo
+    PLRU("PLRU");  // aproximação do LRU por uma arvore de bits por conjunto
+
+    private final String nome;
+
+    TipoSubstituicao(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public static TipoSubstituicao fromString(String nome) {
+        for (TipoSubstituicao tipo : values()) {
+            if (tipo.nome.equalsIgnoreCase(nome)) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Politica de substituição desconhecida: " + nome);
+    }
+}
@@ -0,0 +1,35 @@
+package simulador;
+
+/**
+ * Enum que representa os tipos de unidade funcional que executam as operações
+ */
+public enum TipoUnidadeFuncional {
+    SOMADOR("Somador"),
+    MULTIPLICADOR("Multiplicador"),
+    DIVISOR("Divisor"),
+    MEMORIA("Memoria");
+
+    private final String nome;
+
+    TipoUnidadeFuncional(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Tipo de unidade que executa a operação (branches usam o somador para a comparação)
+     */
+    public static TipoUnidadeFuncional de(OpCode op) {
+        if (op.isMemoryOperation()) {
+            return MEMORIA;
+        } else if (op == OpCode.DIV || op == OpCode.DIVI) {
+            return DIVISOR;
+        } else if (op.isMultiplyDivide()) {
+            return MULTIPLICADOR;
+        }
+        return SOMADOR;
+    }
+}
@@ -0,0 +1,64 @@
+package simulador;
+
+/**
+ * Classe que representa uma unidade funcional (somador, multiplicador...).
+ * A latencia de cada operação continua sendo contada pela estacao de reserva;
+ * a unidade só limita quantas operações podem começar: depois de aceitar uma
+ * operação ela fica ocupada pelo seu intervalo de iniciação.
+ * Com intervalo 1 a unidade é totalmente pipelined, com intervalo igual à
+ * latencia ela executa uma operação por vez.
+ */
+public class UnidadeFuncional {
+    private final String nome;
+    private final TipoUnidadeFuncional tipo;
+    private final int intervaloIniciacao;
+    private int proximaAceitacao; // primeiro ciclo em que pode aceitar uma nova operação
+
+    public UnidadeFuncional(String nome, TipoUnidadeFuncional tipo, int intervaloIniciacao) {
+        this.nome = nome;
+        this.tipo = tipo;
+        this.intervaloIniciacao = intervaloIniciacao;
+        this.proximaAceitacao = 0;
+    }
+
+    /**
+     * Verifica se a unidade pode começar uma nova operação no ciclo
+     */
+    public boolean disponivel(int ciclo) {
+        return ciclo >= proximaAceitacao;
+    }
+
+    /**
+     * Começa uma operação no ciclo, ocupando a entrada da unidade pelo intervalo de iniciação
+     */
+    public void aceitar(int ciclo) {
+        proximaAceitacao = ciclo + intervaloIniciacao;
+    }
+
+    /**
+     * Libera a unidade (reinicio do simulador)
+     */
+    public void limpar() {
+        proximaAceitacao = 0;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public TipoUnidadeFuncional getTipo() {
+        return tipo;
+    }
+
+    public int getIntervaloIniciacao() {
+        return intervaloIniciacao;
+    }
+
+    public int getProximaAceitacao() {
+        return proximaAceitacao;
+    }
+
+    void setProximaAceitacao(int proximaAceitacao) {
+        this.proximaAceitacao = proximaAceitacao;
+    }
+}
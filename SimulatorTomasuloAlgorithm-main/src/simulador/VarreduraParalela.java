@@ -0,0 +1,486 @@
+package simulador;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+/**
+ * Exploração do espaço de projeto: simula em paralelo o produto cartesiano
+ * programas x configurações e devolve uma tabela de resultados na ordem dos pontos
+ * (programa mais externo, configuração mais interna), independente da ordem de execução.
+ *
+ * Cada arquivo é parseado uma unica vez, antes de começar a simulação, e o Programa (imutavel)
+ * é compartilhado por todas as threads, já que o estado de execução fica no simulador.
+ * As configurações são distribuidas em um ForkJoinPool (work-stealing): cada tarefa cria um
+ * simulador para a sua configuração, o reaproveita para todos os programas e o descarta no fim.
+ * Um ponto que falhou ou foi interrompido (watchdog ou limite de ciclos) tem a coluna erro
+ * preenchida, e nesse caso o programa termina com status 1 depois de escrever o CSV.
+ *
+ * Uso: java -cp bin simulador.VarreduraParalela [--threads N] [--cache diretorio] [--rob 8,16] [--emissao 1,4] [--commit 1,4] [--add 3] [--mul 3]
+ *      [--load 3] [--branch 3] [--privados 33] [--memoria 1024] [--preditor naotomado,gshare]
+ *      [--l1 256,2,4,1/1024,4,8,1,plru] [--l2 -/8192,8,8,4] [--latencia DIV=3,10 ...]
+ *      [--unidades MULTIPLICADOR=1,2 ...] [--intervalo DIVISOR=1,3 ...] [--watchdog ciclos] [--limite-ciclos ciclos]
+ *      arquivo1.txt [arquivo2.txt ...]
+ */
+public class VarreduraParalela {
+    private static final int CONFIGURACOES_POR_TAREFA = 1;
+
+    /**
+     * Resultado da simulação de um ponto do espaço de projeto
+     */
+    public static class Ponto {
+        private final String programa;
+        private final ConfiguracaoSimulador configuracao;
+        private int ciclos;
+        private int instrucoes;
+        private int ciclosBolha;
+        private double ipc;
+        private int desvios;
+        private int desviosPrevistosErrado;
+        private int ciclosPenalidadeDesvio;
+        private int acertosL1;
+        private int falhasL1;
+        private int acertosL2;
+        private int falhasL2;
+        private int cargasEncaminhadas;
+        private int ciclosEsperaMemoria;
+        private String erro;
+
+        Ponto(String programa, ConfiguracaoSimulador configuracao) {
+            this.programa = programa;
+            this.configuracao = configuracao;
+        }
+
+        public String getPrograma() {
+            return programa;
+        }
+
+        public ConfiguracaoSimulador getConfiguracao() {
+            return configuracao;
+        }
+
+        public int getCiclos() {
+            return ciclos;
+        }
+
+        public int getInstrucoes() {
+            return instrucoes;
+        }
+
+        public int getCiclosBolha() {
+            return ciclosBolha;
+        }
+
+        public double getIpc() {
+            return ipc;
+        }
+
+        public int getDesvios() {
+            return desvios;
+        }
+
+        public int getDesviosPrevistosErrado() {
+            return desviosPrevistosErrado;
+        }
+
+        public int getCiclosPenalidadeDesvio() {
+            return ciclosPenalidadeDesvio;
+        }
+
+        public int getAcertosL1() {
+            return acertosL1;
+        }
+
+        public int getFalhasL1() {
+            return falhasL1;
+        }
+
+        public int getAcertosL2() {
+            return acertosL2;
+        }
+
+        public int getFalhasL2() {
+            return falhasL2;
+        }
+
+        public int getCargasEncaminhadas() {
+            return cargasEncaminhadas;
+        }
+
+        public int getCiclosEsperaMemoria() {
+            return ciclosEsperaMemoria;
+        }
+
+        /**
+         * Mensagem de erro da simulação deste ponto, ou null se terminou normalmente
+         */
+        public String getErro() {
+            return erro;
+        }
+    }
+
+    private final List<String> programas;
+    private final List<ConfiguracaoSimulador> configuracoes;
+    private final int threads;
+
+    public VarreduraParalela(List<String> programas, List<ConfiguracaoSimulador> configuracoes, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads deve ser positivo: " + threads);
+        }
+        this.programas = new ArrayList<>(programas);
+        this.configuracoes = new ArrayList<>(configuracoes);
+        this.threads = threads;
+    }
+
+    /**
+     * Simula todos os pontos e devolve os resultados em ordem deterministica
+     */
+    public List<Ponto> executar() {
+        Ponto[] pontos = new Ponto[programas.size() * configuracoes.size()];
+        for (int p = 0; p < programas.size(); p++) {
+            for (int c = 0; c < configuracoes.size(); c++) {
+                pontos[p * configuracoes.size() + c] = new Ponto(programas.get(p), configuracoes.get(c));
+            }
+        }
+        // Um programa que não pode ser lido fica null, com o erro já anotado em todos os seus pontos
+        Programa[] lidos = new Programa[programas.size()];
+        for (int p = 0; p < programas.size(); p++) {
+            try {
+                lidos[p] = InstructionParser.lerPrograma(programas.get(p));
+            } catch (IOException | RuntimeException e) {
+                for (int c = 0; c < configuracoes.size(); c++) {
+                    pontos[p * configuracoes.size() + c].erro = descrever(e);
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new TarefaConfiguracoes(pontos, lidos, 0, configuracoes.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return List.of(pontos);
+    }
+
+    /**
+     * Divide o intervalo de configurações ao meio até chegar em tarefas pequenas
+     */
+    private class TarefaConfiguracoes extends RecursiveAction {
+        private final Ponto[] pontos;
+        private final Programa[] lidos;
+        private final int inicio;
+        private final int fim;
+
+        TarefaConfiguracoes(Ponto[] pontos, Programa[] lidos, int inicio, int fim) {
+            this.pontos = pontos;
+            this.lidos = lidos;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= CONFIGURACOES_POR_TAREFA) {
+                for (int c = inicio; c < fim; c++) {
+                    simularConfiguracao(pontos, lidos, c);
+                }
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new TarefaConfiguracoes(pontos, lidos, inicio, meio),
+                    new TarefaConfiguracoes(pontos, lidos, meio, fim));
+        }
+    }
+
+    /**
+     * Simula todos os programas na configuração c com um unico simulador
+     */
+    private void simularConfiguracao(Ponto[] pontos, Programa[] lidos, int c) {
+        Simulador simulador;
+        try {
+            simulador = new Simulador(configuracoes.get(c));
+        } catch (RuntimeException e) {
+            for (int p = 0; p < lidos.length; p++) {
+                if (lidos[p] != null) {
+                    pontos[p * configuracoes.size() + c].erro = descrever(e);
+                }
+            }
+            return;
+        }
+        simulador.setNivelLog(NivelLog.DESLIGADO);
+        for (int p = 0; p < lidos.length; p++) {
+            if (lidos[p] != null) {
+                simular(simulador, lidos[p], pontos[p * configuracoes.size() + c]);
+            }
+        }
+    }
+
+    private static void simular(Simulador simulador, Programa programa, Ponto ponto) {
+        try {
+            simulador.carregarPrograma(programa);
+            simulador.executarCompleto();
+            if (simulador.isSimulacaoInterrompida()) {
+                // Sem terminar o programa os contadores não são um resultado valido
+                ponto.erro = "Simulacao interrompida no ciclo " + (simulador.getCicloAtual() + 1);
+            }
+            ponto.ciclos = simulador.getTotalCiclos();
+            ponto.instrucoes = simulador.getInstrucoesExecutadas();
+            ponto.ciclosBolha = simulador.getCiclosBolha();
+            ponto.ipc = simulador.calcularIPC();
+            ponto.desvios = simulador.getDesvios();
+            ponto.desviosPrevistosErrado = simulador.getDesviosPrevistosErrado();
+            ponto.ciclosPenalidadeDesvio = simulador.getCiclosPenalidadeDesvio();
+            ponto.cargasEncaminhadas = simulador.getCargasEncaminhadas();
+            ponto.ciclosEsperaMemoria = simulador.getCiclosEsperaMemoria();
+            if (simulador.getCacheL1() != null) {
+                ponto.acertosL1 = simulador.getCacheL1().getAcertos();
+                ponto.falhasL1 = simulador.getCacheL1().getFalhas();
+            }
+            if (simulador.getCacheL2() != null) {
+                ponto.acertosL2 = simulador.getCacheL2().getAcertos();
+                ponto.falhasL2 = simulador.getCacheL2().getFalhas();
+            }
+        } catch (RuntimeException e) {
+            ponto.erro = descrever(e);
+        }
+    }
+
+    private static String descrever(Exception e) {
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    public static String formatarCSV(List<Ponto> pontos) {
+        StringBuilder saida = new StringBuilder();
+        saida.append("programa,rob,largura_emissao,largura_commit,estacoes_add,estacoes_mul,estacoes_load,estacoes_branch,registradores_privados,memoria,preditor,l1,l2,");
+        for (OpCode op : OpCode.values()) {
+            saida.append("lat_").append(op.getNome().toLowerCase(Locale.ROOT)).append(',');
+        }
+        for (TipoUnidadeFuncional tipo : TipoUnidadeFuncional.values()) {
+            String nome = tipo.getNome().toLowerCase(Locale.ROOT);
+            saida.append("unidades_").append(nome).append(",intervalo_").append(nome).append(',');
+        }
+        saida.append("ciclos,instrucoes,ciclos_bolha,ipc,desvios,desvios_previstos_errado,ciclos_penalidade_desvio,"
+                + "acertos_l1,falhas_l1,acertos_l2,falhas_l2,cargas_encaminhadas,ciclos_espera_memoria,erro\n");
+        for (Ponto ponto : pontos) {
+            ConfiguracaoSimulador c = ponto.getConfiguracao();
+            saida.append('"').append(ponto.getPrograma().replace("\"", "\"\"")).append("\",")
+                 .append(c.getTamanhoROB()).append(',')
+                 .append(c.getLarguraEmissao()).append(',')
+                 .append(c.getLarguraCommit()).append(',')
+                 .append(c.getNumEstacoesAdd()).append(',')
+                 .append(c.getNumEstacoesMul()).append(',')
+                 .append(c.getNumEstacoesLoad()).append(',')
+                 .append(c.getNumEstacoesBranches()).append(',')
+                 .append(c.getNumRegistradoresPrivados()).append(',')
+                 .append(c.getTamanhoMemoria()).append(',')
+                 .append(c.getTipoPreditor().getNome()).append(',')
+                 .append('"').append(c.getCacheL1() == null ? "" : c.getCacheL1()).append("\",")
+                 .append('"').append(c.getCacheL2() == null ? "" : c.getCacheL2()).append("\",");
+            for (OpCode op : OpCode.values()) {
+                saida.append(c.getLatencia(op)).append(',');
+            }
+            for (TipoUnidadeFuncional tipo : TipoUnidadeFuncional.values()) {
+                saida.append(c.getNumUnidades(tipo)).append(',').append(c.getIntervaloIniciacao(tipo)).append(',');
+            }
+            saida.append(ponto.getCiclos()).append(',')
+                 .append(ponto.getInstrucoes()).append(',')
+                 .append(ponto.getCiclosBolha()).append(',')
+                 .append(String.format(Locale.ROOT, "%.4f", ponto.getIpc())).append(',')
+                 .append(ponto.getDesvios()).append(',')
+                 .append(ponto.getDesviosPrevistosErrado()).append(',')
+                 .append(ponto.getCiclosPenalidadeDesvio()).append(',')
+                 .append(ponto.getAcertosL1()).append(',')
+                 .append(ponto.getFalhasL1()).append(',')
+                 .append(ponto.getAcertosL2()).append(',')
+                 .append(ponto.getFalhasL2()).append(',')
+                 .append(ponto.getCargasEncaminhadas()).append(',')
+                 .append(ponto.getCiclosEsperaMemoria()).append(',')
+                 .append(ponto.getErro() == null ? "" : '"' + ponto.getErro().replace("\"", "\"\"") + '"')
+                 .append('\n');
+        }
+        return saida.toString();
+    }
+
+    /**
+     * Combina cada configuração com cada valor de uma dimensão
+     */
+    private static List<ConfiguracaoSimulador> expandir(List<ConfiguracaoSimulador> configuracoes, int[] valores,
+                                                        BiFunction<ConfiguracaoSimulador, Integer, ConfiguracaoSimulador> aplicar) {
+        List<ConfiguracaoSimulador> expandidas = new ArrayList<>(configuracoes.size() * valores.length);
+        for (ConfiguracaoSimulador c : configuracoes) {
+            for (int v : valores) {
+                expandidas.add(aplicar.apply(c, v));
+            }
+        }
+        return expandidas;
+    }
+
+    private static int[] lerLista(String valor) {
+        String[] partes = valor.split(",");
+        int[] numeros = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            numeros[i] = Integer.parseInt(partes[i].trim());
+        }
+        return numeros;
+    }
+
+    /**
+     * Lê caches separadas por '/', no formato de ConfiguracaoCache.fromString() ("-" para nenhuma)
+     */
+    private static List<ConfiguracaoCache> lerCaches(String valor) {
+        List<ConfiguracaoCache> caches = new ArrayList<>();
+        for (String parte : valor.split("/")) {
+            caches.add(parte.trim().equals("-") ? null : ConfiguracaoCache.fromString(parte));
+        }
+        return caches;
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ConfiguracaoSimulador base = ConfiguracaoSimulador.padrao();
+        int[] rob = {base.getTamanhoROB()};
+        int[] emissao = {base.getLarguraEmissao()};
+        int[] commit = {base.getLarguraCommit()};
+        int[] add = {base.getNumEstacoesAdd()};
+        int[] mul = {base.getNumEstacoesMul()};
+        int[] load = {base.getNumEstacoesLoad()};
+        int[] branch = {base.getNumEstacoesBranches()};
+        int[] privados = {base.getNumRegistradoresPrivados()};
+        int[] memoria = {base.getTamanhoMemoria()};
+        List<TipoPreditor> preditores = List.of(base.getTipoPreditor());
+        List<ConfiguracaoCache> cachesL1 = Collections.singletonList(base.getCacheL1());
+        List<ConfiguracaoCache> cachesL2 = Collections.singletonList(base.getCacheL2());
+        Map<OpCode, int[]> latencias = new HashMap<>();
+        Map<TipoUnidadeFuncional, int[]> numUnidades = new HashMap<>();
+        Map<TipoUnidadeFuncional, int[]> intervalos = new HashMap<>();
+        List<String> arquivos = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads": {
+                        threads = Integer.parseInt(args[++i]);
+                        if (threads <= 0) {
+                            throw new IllegalArgumentException("threads deve ser positivo: " + threads);
+                        }
+                        break;
+                    }
+                    case "--cache": InstructionParser.setDiretorioCache(Paths.get(args[++i])); break;
+                    case "--rob": rob = lerLista(args[++i]); break;
+                    case "--emissao": emissao = lerLista(args[++i]); break;
+                    case "--commit": commit = lerLista(args[++i]); break;
+                    case "--add": add = lerLista(args[++i]); break;
+                    case "--mul": mul = lerLista(args[++i]); break;
+                    case "--load": load = lerLista(args[++i]); break;
+                    case "--branch": branch = lerLista(args[++i]); break;
+                    case "--privados": privados = lerLista(args[++i]); break;
+                    case "--memoria": memoria = lerLista(args[++i]); break;
+                    case "--l1": cachesL1 = lerCaches(args[++i]); break;
+                    case "--l2": cachesL2 = lerCaches(args[++i]); break;
+                    case "--watchdog": base = base.comLimites(Integer.parseInt(args[++i]), base.getLimiteCiclos()); break;
+                    case "--limite-ciclos": base = base.comLimites(base.getJanelaWatchdog(), Integer.parseInt(args[++i])); break;
+                    case "--preditor": {
+                        preditores = new ArrayList<>();
+                        for (String nome : args[++i].split(",")) {
+                            preditores.add(TipoPreditor.fromString(nome.trim()));
+                        }
+                        break;
+                    }
+                    case "--latencia": {
+                        String[] partes = args[++i].split("=", 2);
+                        latencias.put(OpCode.fromString(partes[0]), lerLista(partes[1]));
+                        break;
+                    }
+                    case "--unidades": {
+                        String[] partes = args[++i].split("=", 2);
+                        numUnidades.put(TipoUnidadeFuncional.valueOf(partes[0].toUpperCase(Locale.ROOT)), lerLista(partes[1]));
+                        break;
+                    }
+                    case "--intervalo": {
+                        String[] partes = args[++i].split("=", 2);
+                        intervalos.put(TipoUnidadeFuncional.valueOf(partes[0].toUpperCase(Locale.ROOT)), lerLista(partes[1]));
+                        break;
+                    }
+                    default: arquivos.add(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Argumento inválido: " + e.getMessage());
+            arquivos.clear();
+        }
+        if (arquivos.isEmpty()) {
+            System.err.println("Uso: java -cp bin simulador.VarreduraParalela [--threads N] [--cache diretorio] [--rob 8,16] [--emissao 1,4] [--commit 1,4] [--add 3] [--mul 3]"
+                    + " [--load 3] [--branch 3] [--privados 33] [--memoria 1024] [--preditor naotomado,gshare]"
+                    + " [--l1 256,2,4,1/1024,4,8,1,plru] [--l2 -/8192,8,8,4] [--latencia DIV=3,10 ...] [--unidades MULTIPLICADOR=1,2 ...]"
+                    + " [--intervalo DIVISOR=1,3 ...] [--watchdog ciclos] [--limite-ciclos ciclos] arquivo1.txt [arquivo2.txt ...]");
+            System.exit(2);
+        }
+
+        // Produto cartesiano das dimensões, expandindo uma dimensão por vez
+        List<ConfiguracaoSimulador> configuracoes = List.of(base);
+        configuracoes = expandir(configuracoes, rob, ConfiguracaoSimulador::comTamanhoROB);
+        configuracoes = expandir(configuracoes, emissao, (c, v) -> c.comLarguras(v, c.getLarguraCommit()));
+        configuracoes = expandir(configuracoes, commit, (c, v) -> c.comLarguras(c.getLarguraEmissao(), v));
+        configuracoes = expandir(configuracoes, add, (c, v) -> c.comEstacoes(v, c.getNumEstacoesMul(),
+                c.getNumEstacoesLoad(), c.getNumEstacoesBranches()));
+        configuracoes = expandir(configuracoes, mul, (c, v) -> c.comEstacoes(c.getNumEstacoesAdd(), v,
+                c.getNumEstacoesLoad(), c.getNumEstacoesBranches()));
+        configuracoes = expandir(configuracoes, load, (c, v) -> c.comEstacoes(c.getNumEstacoesAdd(),
+                c.getNumEstacoesMul(), v, c.getNumEstacoesBranches()));
+        configuracoes = expandir(configuracoes, branch, (c, v) -> c.comEstacoes(c.getNumEstacoesAdd(),
+                c.getNumEstacoesMul(), c.getNumEstacoesLoad(), v));
+        configuracoes = expandir(configuracoes, privados,
+                (c, v) -> c.comRegistradores(c.getNumRegistradoresPublicos(), v));
+        configuracoes = expandir(configuracoes, memoria, ConfiguracaoSimulador::comTamanhoMemoria);
+        List<ConfiguracaoSimulador> comPreditores = new ArrayList<>(configuracoes.size() * preditores.size());
+        for (ConfiguracaoSimulador c : configuracoes) {
+            for (TipoPreditor tipo : preditores) {
+                comPreditores.add(c.comPreditor(tipo));
+            }
+        }
+        configuracoes = comPreditores;
+        List<ConfiguracaoSimulador> comCaches = new ArrayList<>(configuracoes.size() * cachesL1.size() * cachesL2.size());
+        for (ConfiguracaoSimulador c : configuracoes) {
+            for (ConfiguracaoCache l1 : cachesL1) {
+                for (ConfiguracaoCache l2 : cachesL2) {
+                    if (l1 == null && l2 != null) {
+                        continue; // L2 sem L1 não é uma configuração valida
+                    }
+                    comCaches.add(c.comCaches(l1, l2));
+                }
+            }
+        }
+        configuracoes = comCaches;
+        for (OpCode op : OpCode.values()) {
+            int[] valores = latencias.get(op);
+            if (valores != null) {
+                configuracoes = expandir(configuracoes, valores, (c, v) -> c.comLatencia(op, v));
+            }
+        }
+        for (TipoUnidadeFuncional tipo : TipoUnidadeFuncional.values()) {
+            if (numUnidades.containsKey(tipo)) {
+                configuracoes = expandir(configuracoes, numUnidades.get(tipo),
+                        (c, v) -> c.comUnidades(tipo, v, c.getIntervaloIniciacao(tipo)));
+            }
+            if (intervalos.containsKey(tipo)) {
+                configuracoes = expandir(configuracoes, intervalos.get(tipo),
+                        (c, v) -> c.comUnidades(tipo, c.getNumUnidades(tipo), v));
+            }
+        }
+
+        List<Ponto> pontos = new VarreduraParalela(arquivos, configuracoes, threads).executar();
+        System.out.print(formatarCSV(pontos));
+        for (Ponto ponto : pontos) {
+            if (ponto.getErro() != null) {
+                System.exit(1);
+            }
+        }
+    }
+}